@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import org.python.core.Options;
+
+/**
+ * Shared set up for the benchmarks. They need to be run from the assets
+ * directory, just like the application.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class Benchmarks
+{
+
+    /**
+     * Sets up just enough of libgdx for the simulation to run: file access
+     * (for the PyRobot layout and the samples) and the Box2D natives. Like the
+     * headless launcher, the interpreters don't import python's site module.
+     */
+    static synchronized void setUp()
+    {
+        if ( Gdx.files == null )
+        {
+            Gdx.files = new HeadlessFiles();
+            Box2D.init();
+            Options.importSite = false;
+        }
+    }
+
+    /**
+     * @param name
+     *          The name of the sample, without the extension.
+     * @return The source of the sample.
+     */
+    static String sample( String name )
+    {
+        return Gdx.files.internal( "samples/" + name + ".py" ).readString();
+    }
+
+    /**
+     * Creates a simulation driven by the given controller.
+     *
+     * @param controller
+     *          The java controller to drive the robot with.
+     * @return The initialized simulation.
+     */
+    static SimulationInstance simulation( RobotController controller )
+    {
+        SimulationInstance simulation = new SimulationInstance();
+        simulation.newController( controller );
+        simulation.initialize();
+        return simulation;
+    }
+
+    /**
+     * A controller with the same hardware as PyRobot, which drives the robot
+     * around in a circle without any interpreter overhead.
+     */
+    static final class CircleController implements RobotController
+    {
+
+        /** The motors on the left side of the robot. */
+        private Motor frontLeft, backLeft;
+
+        /** The motors on the right side of the robot. */
+        private Motor frontRight, backRight;
+
+        /** The distance sensor on the front of the robot. */
+        DistanceSensor distanceSensor;
+
+        @Override
+        public void init( Robot robot )
+        {
+            float x = Robot.WIDTH * 0.40f;
+            float y = Robot.HEIGHT * 0.40f;
+
+            frontLeft = robot.addMotor( new Motor( x, y ) );
+            frontRight = robot.addMotor( new Motor( x, -y ) );
+            backLeft = robot.addMotor( new Motor( -x, y ) );
+            backRight = robot.addMotor( new Motor( -x, -y ) );
+
+            distanceSensor = ( DistanceSensor ) robot.addSensor( new DistanceSensor( 0, Robot.WIDTH / 2, 0 ) );
+        }
+
+        @Override
+        public void loop( Robot robot )
+        {
+            frontLeft.power = backLeft.power = 0.5f;
+            frontRight.power = backRight.power = distanceSensor.getDistance() == -1 ? 1f : 0.25f;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of calling into a script's loop each tick, for each
+ * of the bundled samples and for a java controller doing the same thing.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ControllerBenchmark
+{
+
+    /** The sample to run, or "java" for the java circle controller. */
+    @Param( { "Bounce", "Tracking", "java" } )
+    public String sample;
+
+    /** The simulation the controller is in. */
+    private SimulationInstance simulation;
+
+    /** The controller being measured. */
+    private Controller controller;
+
+    /** The robot's sensor readings. */
+    private float[] inputs;
+
+    /** The robot's motor powers. */
+    private float[] outputs;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        Benchmarks.setUp();
+
+        if ( sample.equals( "java" ) )
+        {
+            simulation = Benchmarks.simulation( new Benchmarks.CircleController() );
+        }
+        else
+        {
+            simulation = new SimulationInstance();
+            simulation.newInterpreter( Benchmarks.sample( sample ) );
+            simulation.initialize();
+        }
+
+        // take a single step so the sensors have real readings
+        simulation.step( SimulationInstance.STEP_LENGTH );
+
+        controller = simulation.getController();
+        inputs = simulation.getRobot().getInputs();
+        outputs = simulation.getRobot().getOutputs();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        simulation.dispose();
+    }
+
+    @Benchmark
+    public float[] loop()
+    {
+        controller.loop( inputs, outputs );
+        return outputs;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-tick cost of the robot's hardware: a distance sensor
+ * ray cast, a full lidar scan, and the motors applying their net force.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class HardwareBenchmark
+{
+
+    /** The simulation the hardware is in. */
+    private SimulationInstance simulation;
+
+    /** The robot's distance sensor. */
+    private DistanceSensor distanceSensor;
+
+    /** A full circle lidar added to the robot. */
+    private LidarSensor lidarSensor;
+
+    /** The robot the hardware is on. */
+    private Robot robot;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        Benchmarks.setUp();
+
+        Benchmarks.CircleController controller = new Benchmarks.CircleController();
+        simulation = Benchmarks.simulation( controller );
+        distanceSensor = controller.distanceSensor;
+        robot = simulation.getRobot();
+        Arrays.fill( robot.getOutputs(), 1f );
+
+        lidarSensor = ( LidarSensor ) robot.addSensor( new LidarSensor( 0, 0, 0, 360, 360 ) );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        simulation.dispose();
+    }
+
+    @Benchmark
+    public int distanceSensorUpdate()
+    {
+        distanceSensor.update();
+        return distanceSensor.getDistance();
+    }
+
+    @Benchmark
+    public int lidarSensorUpdate()
+    {
+        lidarSensor.update();
+        return lidarSensor.getDistance( 0 );
+    }
+
+    @Benchmark
+    public void motorsUpdate()
+    {
+        robot.updateMotors();
+    }
+
+}
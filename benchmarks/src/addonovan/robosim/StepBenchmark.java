@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole simulation tick (hardware, controller and physics) as the
+ * number of static entities in the world grows.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class StepBenchmark
+{
+
+    /** The number of extra walls in the world, on top of the arena's. */
+    @Param( { "0", "100", "1000" } )
+    public int walls;
+
+    /** The simulation being stepped. */
+    private SimulationInstance simulation;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        Benchmarks.setUp();
+        simulation = Benchmarks.simulation( new Benchmarks.CircleController() );
+
+        // a grid of small posts across the arena, so they end up in the broadphase near the robot
+        int side = ( int ) java.lang.Math.ceil( java.lang.Math.sqrt( walls ) );
+        for ( int i = 0; i < walls; i++ )
+        {
+            float x = 12f + 136f * ( i % side ) / side;
+            float y = 12f + 136f * ( i / side ) / side;
+            new Wall( simulation, 0.5f, 0.5f, x, y );
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        simulation.dispose();
+    }
+
+    @Benchmark
+    public void step()
+    {
+        simulation.step( SimulationInstance.STEP_LENGTH );
+    }
+
+}
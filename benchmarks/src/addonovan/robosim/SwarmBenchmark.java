@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole simulation tick as the number of robots in the world grows,
+ * each with its own controller and distance sensor, and with the controllers
+ * run on one thread or several.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class SwarmBenchmark
+{
+
+    /** An arena big enough for every robot's starting grid, 20 ft across. */
+    private static final String ARENA = "wall 8 8 2 480\nwall 8 8 480 2\nwall 486 8 2 482\nwall 8 486 480 2\n";
+
+    /** The number of robots in the world. */
+    @Param( { "1", "100", "300" } )
+    public int robots;
+
+    /** The number of threads to run the controllers on. */
+    @Param( { "1", "4" } )
+    public int threads;
+
+    /** The simulation being stepped. */
+    private SimulationInstance simulation;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        Benchmarks.setUp();
+        simulation = new SimulationInstance();
+        simulation.setArena( Arena.parse( ARENA ) );
+        simulation.setRobotCount( robots );
+        simulation.setControllerParallelism( threads );
+        simulation.newController( Benchmarks.CircleController::new );
+        simulation.initialize();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown()
+    {
+        simulation.dispose();
+    }
+
+    @Benchmark
+    public void step()
+    {
+        simulation.step( SimulationInstance.STEP_LENGTH );
+    }
+
+}
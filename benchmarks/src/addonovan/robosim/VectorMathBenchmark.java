@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the vector helpers in Math and Units, both the allocating versions
+ * and the ones which write into an existing vector.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class VectorMathBenchmark
+{
+
+    /** Not final, so the JIT can't fold the math away. */
+    public float magnitude = 48.65f, angle = 0.7f, x = 18f, y = -7f;
+
+    /** The vector written into by the non-allocating versions. */
+    private final Vector2 out = new Vector2();
+
+    /** An input vector for the unit conversions. */
+    private final Vector2 input = new Vector2( 120f, 45f );
+
+    @Benchmark
+    public Vector2 vectorFrom()
+    {
+        return Math.vectorFrom( magnitude, angle );
+    }
+
+    @Benchmark
+    public Vector2 vectorFromInto()
+    {
+        return Math.vectorFrom( magnitude, angle, out );
+    }
+
+    @Benchmark
+    public Vector2 vectorFromAngle()
+    {
+        return Math.vectorFromAngle( x, y, angle );
+    }
+
+    @Benchmark
+    public Vector2 vectorFromAngleInto()
+    {
+        return Math.vectorFromAngle( x, y, angle, out );
+    }
+
+    @Benchmark
+    public Vector2 pxToM()
+    {
+        return Units.pxToM( input );
+    }
+
+    @Benchmark
+    public Vector2 pxToMInto()
+    {
+        return Units.pxToM( input, out );
+    }
+
+    @Benchmark
+    public Vector2 mToPx()
+    {
+        return Units.mToPx( input );
+    }
+
+    @Benchmark
+    public Vector2 mToPxInto()
+    {
+        return Units.mToPx( input, out );
+    }
+
+}
@@ -25,21 +25,93 @@
 from addonovan.robosim import Robot
 from addonovan.robosim import Motor
 from addonovan.robosim import DistanceSensor
-from addonovan.robosim import Simulation
+from addonovan.robosim import LidarSensor
 
-class PyRobot:
+# The script never touches the java hardware directly while it's running.
+# Instead, the sensor readings are handed to _tick() in one array each tick,
+# and the motor powers are handed back in another array once loop() returns.
+
+class MotorPort:
 
     def __init__(self):
+        self.power = 0.0
+
+
+class DistanceSensorPort:
+
+    def __init__(self, pyRobot, index):
+        self._pyRobot = pyRobot
+        self._index = index
+
+    def getDistance(self):
+        return int( self._pyRobot._inputs[ self._index ] )
+
+
+class LidarPort:
+
+    def __init__(self, pyRobot, index, beams):
+        self._pyRobot = pyRobot
+        self._index = index
+        self._beams = beams
+
+    def getBeamCount(self):
+        return self._beams
+
+    def getDistance(self, beam):
+        return int( self._pyRobot._inputs[ self._index + beam ] )
+
+    def getDistances(self):
+        # one slice of the frame, rather than a call per beam
+        return self._pyRobot._inputs[ self._index : self._index + self._beams ]
+
+
+class PyRobot:
+
+    def __init__(self, robot):
+        # every robot in the simulation gets its own PyRobot, so scripts can
+        # tell them apart by their index
+        self._robot = robot
+        self.index = robot.getIndex()
+        self._inputs = None
+        self._inputCount = 0
+        self._motors = []
+
         x_diff = Robot.WIDTH * 0.40
         y_diff = Robot.HEIGHT * 0.40
 
-        self.mtr_fl = Simulation.robot.addMotor( Motor(  x_diff,  y_diff ) )
-        self.mtr_fr = Simulation.robot.addMotor( Motor(  x_diff, -y_diff ) )
+        self.mtr_fl = self._addMotor( Motor(  x_diff,  y_diff ) )
+        self.mtr_fr = self._addMotor( Motor(  x_diff, -y_diff ) )
+
+        self.mtr_bl = self._addMotor( Motor( -x_diff,  y_diff ) )
+        self.mtr_br = self._addMotor( Motor( -x_diff, -y_diff ) )
+
+        self.sensor_distance = DistanceSensorPort( self, self._addSensor( DistanceSensor( 0, Robot.WIDTH / 2, 0 ) ) )
+
+        # scripts can add their own hardware in setup()
+        if hasattr( self, "setup" ):
+            self.setup()
+
+    def addLidar(self, x, y, angle, fieldOfView, beams):
+        return LidarPort( self, self._addSensor( LidarSensor( x, y, angle, fieldOfView, beams ) ), beams )
+
+    def _addMotor(self, motor):
+        self._robot.addMotor( motor )
+        port = MotorPort()
+        self._motors.append( port )
+        return port
+
+    def _addSensor(self, sensor):
+        index = self._inputCount
+        self._inputCount += self._robot.addSensor( sensor ).getFrameSize()
+        return index
 
-        self.mtr_bl = Simulation.robot.addMotor( Motor( -x_diff,  y_diff ) )
-        self.mtr_br = Simulation.robot.addMotor( Motor( -x_diff, -y_diff ) )
+    def _tick(self, inputs, outputs):
+        self._inputs = inputs
+        self.loop()
 
-        self.sensor_distance = Simulation.robot.addSensor( DistanceSensor( 0, Robot.WIDTH / 2, 0 ) )
+        motors = self._motors
+        for i in xrange( len( motors ) ):
+            outputs[ i ] = motors[ i ].power
 
 
     # INSERT HERE
\ No newline at end of file
@@ -7,6 +7,12 @@
 # again.
 # </description>
 
+# how close the robot gets to the wall before backing off [cm]
+NEAR = 20  # @tune 5 100
+
+# the distance at which the robot moves at full power [cm]
+RANGE = 255.0  # @tune 50 500
+
 edge = False
 
 def move(self, power):
@@ -28,13 +34,13 @@ def move(self, power):
 def loop(self):
     distance = self.sensor_distance.getDistance()
 
-    if distance < 20 and distance != -1:
+    if distance < self.NEAR and distance != -1:
         self.edge = True
 
     if self.edge and distance == -1:
         self.edge = False
 
-    power = ( distance / 255.0 )
+    power = ( distance / self.RANGE )
     if power < 0:
         power = 1
 
@@ -5,6 +5,12 @@
 # reads a value greater than 20, and the cycle will repeat.
 # </description>
 
+# how close the wall may get before the robot turns away [cm]
+FAR = 125  # @tune 30 250
+
+# how hard the robot turns away from the wall
+TURN = 1.0  # @tune 0.2 1.0
+
 def rotate(self, power):
     self.mtr_fr.power = power
     self.mtr_br.power = power
@@ -27,7 +33,7 @@ def move(self, power):
 def loop(self):
     distance = self.sensor_distance.getDistance()
 
-    if distance == -1 or distance > 125:
+    if distance == -1 or distance > self.FAR:
         self.move( 1 )
     else:
-        self.rotate( 1 )
\ No newline at end of file
+        self.rotate( self.TURN )
\ No newline at end of file
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The layout of the walls in the arena, as a list of axis-aligned rectangles
+ * measured in inches.
+ *
+ * Arenas are stored in a compact binary form, which is read straight out of
+ * a memory-mapped file:
+ * <pre>
+ *     int    magic ('RSAR')
+ *     int    version (1)
+ *     int    the number of walls
+ *     float  x, y, width, height (for each wall) [in]
+ * </pre>
+ * all big-endian. They may also be written by hand in a text form, with one
+ * wall per line and # starting a comment:
+ * <pre>
+ *     # x y width height [in]
+ *     wall 8 8 2 144
+ * </pre>
+ * load() accepts either form, and write() always writes the binary one.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class Arena
+{
+
+    //
+    // Constants
+    //
+
+    /** The first four bytes of a binary arena file, "RSAR". */
+    private static final int MAGIC = 0x52534152;
+
+    /** The version of the binary format. */
+    private static final int VERSION = 1;
+
+    /** The size of the binary header [bytes]. */
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    /** The number of values stored for each wall. */
+    private static final int WALL_SIZE = 4;
+
+    /** The arena everything used to be hardcoded to: a 144in square with 2in thick walls. */
+    public static final Arena DEFAULT = new Arena( new float[] {
+              8f,   8f,   2f, 144f,
+              8f,   8f, 144f,   2f,
+            152f,   8f,   2f, 146f,
+              8f, 152f, 146f,   2f,
+    } );
+
+    //
+    // Fields
+    //
+
+    /** x, y, width and height of each wall, one after the other [in]. */
+    private final float[] walls;
+
+    /** The space inside the outer walls [in]. */
+    private final Rectangle interior;
+
+    /** The distance field of the walls, shared by every simulation using this arena. */
+    private DistanceField distanceField;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param walls
+     *          The x, y, width and height of each wall, one after the other [in].
+     */
+    private Arena( float[] walls )
+    {
+        this.walls = walls;
+        this.interior = findInterior( walls );
+    }
+
+    /**
+     * Loads an arena from a file in either the binary or text form.
+     *
+     * @param file
+     *          The file to load.
+     * @return The arena in the file.
+     *
+     * @throws IOException
+     *          If the file couldn't be read, or isn't an arena.
+     */
+    public static Arena load( File file ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( file.toPath(), StandardOpenOption.READ ) )
+        {
+            long size = channel.size();
+            if ( size < HEADER_SIZE )
+            {
+                return parse( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+            }
+
+            MappedByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, size );
+            if ( buffer.getInt( 0 ) != MAGIC )
+            {
+                return parse( StandardCharsets.UTF_8.decode( buffer ).toString() );
+            }
+
+            int version = buffer.getInt( Integer.BYTES );
+            if ( version != VERSION ) throw new IOException( "Unsupported arena version: " + version );
+
+            int count = buffer.getInt( 2 * Integer.BYTES );
+            if ( count < 0 || size != HEADER_SIZE + ( long ) count * WALL_SIZE * Float.BYTES )
+            {
+                throw new IOException( "Arena file is truncated or corrupt: " + file );
+            }
+
+            float[] walls = new float[ count * WALL_SIZE ];
+            buffer.position( HEADER_SIZE );
+            buffer.asFloatBuffer().get( walls );
+            return new Arena( validate( walls ) );
+        }
+    }
+
+    /**
+     * Parses an arena in the text form.
+     *
+     * @param text
+     *          The text to parse.
+     * @return The arena described by the text.
+     *
+     * @throws IOException
+     *          If the text isn't a valid arena.
+     */
+    public static Arena parse( String text ) throws IOException
+    {
+        float[] walls = new float[ 64 ];
+        int size = 0;
+
+        String[] lines = text.split( "\r?\n" );
+        for ( int i = 0; i < lines.length; i++ )
+        {
+            String line = lines[ i ];
+            int comment = line.indexOf( '#' );
+            if ( comment >= 0 ) line = line.substring( 0, comment );
+            line = line.trim();
+            if ( line.isEmpty() ) continue;
+
+            String[] parts = line.split( "\\s+" );
+            if ( !parts[ 0 ].equals( "wall" ) || parts.length != 1 + WALL_SIZE )
+            {
+                throw new IOException( "Line " + ( i + 1 ) + ": expected 'wall x y width height', found '" + line + "'" );
+            }
+
+            if ( size + WALL_SIZE > walls.length ) walls = Arrays.copyOf( walls, walls.length * 2 );
+            for ( int j = 0; j < WALL_SIZE; j++ )
+            {
+                try
+                {
+                    walls[ size++ ] = Float.parseFloat( parts[ j + 1 ] );
+                }
+                catch ( NumberFormatException e )
+                {
+                    throw new IOException( "Line " + ( i + 1 ) + ": not a number: " + parts[ j + 1 ] );
+                }
+            }
+        }
+
+        return new Arena( validate( Arrays.copyOf( walls, size ) ) );
+    }
+
+    /**
+     * @throws IOException
+     *          If any of the walls have a position or size which isn't finite
+     *          (like a corrupted file would), or don't have a positive size.
+     */
+    private static float[] validate( float[] walls ) throws IOException
+    {
+        for ( int i = 0; i < walls.length; i += WALL_SIZE )
+        {
+            for ( int j = i; j < i + WALL_SIZE; j++ )
+            {
+                if ( !Float.isFinite( walls[ j ] ) )
+                {
+                    throw new IOException( "Wall " + ( i / WALL_SIZE ) + " has a non-finite value: " + walls[ j ] );
+                }
+            }
+
+            if ( !( walls[ i + 2 ] > 0f && walls[ i + 3 ] > 0f ) )
+            {
+                throw new IOException( "Wall " + ( i / WALL_SIZE ) + " has no area" );
+            }
+        }
+        return walls;
+    }
+
+    /**
+     * Finds the space inside the outer walls: the box around all of the walls,
+     * with each side moved in past the walls running along it.
+     *
+     * @param walls
+     *          The x, y, width and height of each wall, one after the other [in].
+     * @return The space inside the outer walls [in], which is unbounded if
+     *          there aren't any walls.
+     */
+    private static Rectangle findInterior( float[] walls )
+    {
+        if ( walls.length == 0 )
+        {
+            return new Rectangle( -Float.MAX_VALUE / 2, -Float.MAX_VALUE / 2, Float.MAX_VALUE, Float.MAX_VALUE );
+        }
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for ( int i = 0; i < walls.length; i += WALL_SIZE )
+        {
+            minX = java.lang.Math.min( minX, walls[ i ] );
+            minY = java.lang.Math.min( minY, walls[ i + 1 ] );
+            maxX = java.lang.Math.max( maxX, walls[ i ] + walls[ i + 2 ] );
+            maxY = java.lang.Math.max( maxY, walls[ i + 1 ] + walls[ i + 3 ] );
+        }
+
+        float left = minX, bottom = minY, right = maxX, top = maxY;
+        for ( int i = 0; i < walls.length; i += WALL_SIZE )
+        {
+            float x = walls[ i ], y = walls[ i + 1 ], width = walls[ i + 2 ], height = walls[ i + 3 ];
+
+            // the vertical walls make up the left and right sides, the horizontal ones the top and bottom
+            if ( height >= width )
+            {
+                if ( x == minX ) left = java.lang.Math.max( left, x + width );
+                if ( x + width == maxX ) right = java.lang.Math.min( right, x );
+            }
+            if ( width >= height )
+            {
+                if ( y == minY ) bottom = java.lang.Math.max( bottom, y + height );
+                if ( y + height == maxY ) top = java.lang.Math.min( top, y );
+            }
+        }
+
+        return new Rectangle( left, bottom, java.lang.Math.max( right - left, 0f ), java.lang.Math.max( top - bottom, 0f ) );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Writes this arena in the binary form. The file is replaced atomically,
+     * so a simulation loading it at the same time never sees half of it.
+     *
+     * @param file
+     *          The file to write to.
+     *
+     * @throws IOException
+     *          If the file couldn't be written.
+     */
+    public void write( File file ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + walls.length * Float.BYTES );
+        buffer.putInt( MAGIC ).putInt( VERSION ).putInt( getWallCount() );
+        buffer.asFloatBuffer().put( walls );
+
+        File temp = File.createTempFile( file.getName(), ".tmp", file.getAbsoluteFile().getParentFile() );
+        try
+        {
+            Files.write( temp.toPath(), buffer.array() );
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        finally
+        {
+            Files.deleteIfExists( temp.toPath() );
+        }
+    }
+
+    /**
+     * Creates the walls of this arena in the simulation.
+     *
+     * @param simulation
+     *          The simulation to create the walls in.
+     * @return The walls that were created.
+     */
+    ArenaWalls build( SimulationInstance simulation )
+    {
+        ArenaWalls arenaWalls = new ArenaWalls( simulation, walls );
+        simulation.getRayCaster().setDistanceField( getDistanceField( simulation.getWorld() ) );
+        return arenaWalls;
+    }
+
+    /**
+     * The walls never change, so the field is only built the first time
+     * this arena is used, instead of on every reset.
+     *
+     * @param world
+     *          A world with nothing static in it but this arena's walls.
+     * @return The distance field for this arena's walls.
+     */
+    private synchronized DistanceField getDistanceField( World world )
+    {
+        if ( distanceField == null )
+        {
+            distanceField = new DistanceField( world );
+        }
+        return distanceField;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The number of walls in this arena.
+     */
+    public int getWallCount()
+    {
+        return walls.length / WALL_SIZE;
+    }
+
+    /**
+     * @return The space inside the outer walls [in], which is unbounded if
+     *          there aren't any walls.
+     */
+    public Rectangle getInterior()
+    {
+        return new Rectangle( interior );
+    }
+
+    /**
+     * @param x
+     *          The x position of the box [in].
+     * @param y
+     *          The y position of the box [in].
+     * @param width
+     *          The width of the box [in].
+     * @param height
+     *          The height of the box [in].
+     * @return If any of the walls overlap the box.
+     */
+    public boolean overlaps( float x, float y, float width, float height )
+    {
+        for ( int i = 0; i < walls.length; i += WALL_SIZE )
+        {
+            if ( walls[ i ] < x + width && x < walls[ i ] + walls[ i + 2 ]
+                    && walls[ i + 1 ] < y + height && y < walls[ i + 1 ] + walls[ i + 3 ] )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
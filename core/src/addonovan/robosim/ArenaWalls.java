@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * All of the walls of an {@link Arena}. Instead of a body per wall, the walls
+ * are fixtures on a handful of static bodies, so even a large maze only takes
+ * a few bodies to create on each reset.
+ *
+ * The walls never move, so they're baked into a {@link StaticMesh} the first
+ * time they're drawn and drawn with a single call from then on.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+class ArenaWalls implements Renderable, Disposable
+{
+
+    //
+    // Constants
+    //
+
+    /** The most walls put on a single body. */
+    private static final int WALLS_PER_BODY = 1024;
+
+    //
+    // Fields
+    //
+
+    /** The bodies the walls are fixtures of. */
+    private final Body[] bodies;
+
+    /** x, y, width and height of each wall, one after the other [px]. */
+    private final float[] rects;
+
+    /** The walls on the GPU, or null if they haven't been drawn yet. */
+    private StaticMesh mesh;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates the walls in the simulation.
+     *
+     * @param simulation
+     *          The simulation the walls are in.
+     * @param walls
+     *          The x, y, width and height of each wall, one after the other [in].
+     */
+    ArenaWalls( SimulationInstance simulation, float[] walls )
+    {
+        int count = walls.length / 4;
+        bodies = new Body[ ( count + WALLS_PER_BODY - 1 ) / WALLS_PER_BODY ];
+        rects = new float[ walls.length ];
+
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+
+        PolygonShape shape = new PolygonShape();
+        Vector2 center = new Vector2();
+
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.density = 1.0f;
+        fixtureDef.friction = 1.5f;
+        fixtureDef.restitution = 0.0f;
+
+        for ( int i = 0; i < count; i++ )
+        {
+            if ( i % WALLS_PER_BODY == 0 )
+            {
+                bodies[ i / WALLS_PER_BODY ] = simulation.getWorld().createBody( bodyDef );
+            }
+
+            float x = walls[ i * 4 ], y = walls[ i * 4 + 1 ];
+            float width = walls[ i * 4 + 2 ], height = walls[ i * 4 + 3 ];
+
+            center.set( Units.inToM( x + width / 2 ), Units.inToM( y + height / 2 ) );
+            shape.setAsBox( Units.inToM( width / 2 ), Units.inToM( height / 2 ), center, 0f );
+            bodies[ i / WALLS_PER_BODY ].createFixture( fixtureDef );
+
+            rects[ i * 4 ] = Units.inToPx( x );
+            rects[ i * 4 + 1 ] = Units.inToPx( y );
+            rects[ i * 4 + 2 ] = Units.inToPx( width );
+            rects[ i * 4 + 3 ] = Units.inToPx( height );
+        }
+        shape.dispose();
+    }
+
+    //
+    // Rendering
+    //
+
+    @Override
+    public void update()
+    {
+
+    }
+
+    @Override
+    public void render()
+    {
+        if ( mesh == null )
+        {
+            mesh = new StaticMesh( rects, Color.DARK_GRAY );
+        }
+        Simulation.renderMesh( mesh );
+    }
+
+    @Override
+    public void dispose()
+    {
+        if ( mesh != null )
+        {
+            // the simulation may be reset from the UI thread, but the mesh belongs to the GL thread
+            Gdx.app.postRunnable( mesh::dispose );
+            mesh = null;
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a delivery on an executor after being signalled, no more than once per
+ * interval, no matter how often it's signalled. The delivery is expected to
+ * read the latest value itself, so everything signalled in the meantime is
+ * coalesced into a single call.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class Coalescer
+{
+
+    //
+    // Constants
+    //
+
+    /** Delays deliveries until their interval is up. */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor( runnable ->
+    {
+        Thread thread = new Thread( runnable, "Observable" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    //
+    // Fields
+    //
+
+    /** Hands the latest value to the listener. */
+    private final Runnable delivery;
+
+    /** The executor the delivery is run on. */
+    private final Executor executor;
+
+    /** The minimum time between deliveries [ns]. */
+    private final long interval;
+
+    /** If a delivery is already on its way. */
+    private final AtomicBoolean scheduled = new AtomicBoolean( false );
+
+    /** When the last delivery was run [ns]. */
+    private volatile long lastDelivery;
+
+    /** Runs the delivery, kept so signalling doesn't allocate. */
+    private final Runnable deliver = this::deliver;
+
+    /** Hands the delivery to the executor, kept so signalling doesn't allocate. */
+    private final Runnable submit = this::submit;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param delivery
+     *          Hands the latest value to the listener.
+     * @param executor
+     *          The executor the delivery is run on.
+     * @param interval
+     *          The minimum time between deliveries [ns].
+     */
+    Coalescer( Runnable delivery, Executor executor, long interval )
+    {
+        this.delivery = delivery;
+        this.executor = executor;
+        this.interval = interval;
+        this.lastDelivery = System.nanoTime() - interval;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Signals that there's a new value, which will be delivered as soon as
+     * the interval allows.
+     */
+    void signal()
+    {
+        if ( !scheduled.compareAndSet( false, true ) ) return; // the pending delivery will pick it up
+
+        long delay = lastDelivery + interval - System.nanoTime();
+        if ( delay <= 0 )
+        {
+            submit();
+        }
+        else
+        {
+            TIMER.schedule( submit, delay, TimeUnit.NANOSECONDS );
+        }
+    }
+
+    private void submit()
+    {
+        executor.execute( deliver );
+    }
+
+    private void deliver()
+    {
+        lastDelivery = System.nanoTime();
+
+        // anything signalled after this point schedules another delivery
+        scheduled.set( false );
+        delivery.run();
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Loads RobotControllers by name, either from the classpath or from a jar.
+ *
+ * Controllers are described by a spec of the form {@code path/to/file.jar!com.example.Controller},
+ * or just {@code com.example.Controller} if the class is already on the classpath.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class ControllerLoader
+{
+
+    //
+    // Constants
+    //
+
+    /** Separates the jar from the class name in a spec. */
+    public static final String SEPARATOR = "!";
+
+    //
+    // Actions
+    //
+
+    /**
+     * Loads the controller class described by the spec.
+     *
+     * @param spec
+     *          Either {@code jar!className} or {@code className}.
+     * @return The controller class.
+     *
+     * @throws IOException
+     *          If the jar couldn't be opened.
+     * @throws ReflectiveOperationException
+     *          If the class couldn't be found.
+     */
+    public static Class< ? extends RobotController > loadClass( String spec ) throws IOException, ReflectiveOperationException
+    {
+        int separator = spec.lastIndexOf( SEPARATOR );
+        if ( separator < 0 ) return loadClass( spec, null );
+
+        return loadClass( spec.substring( separator + 1 ), new File( spec.substring( 0, separator ) ) );
+    }
+
+    /**
+     * Loads the controller class with the given name.
+     *
+     * @param className
+     *          The fully qualified name of the class.
+     * @param jar
+     *          The jar to load it from, or null to load it from the classpath.
+     * @return The controller class.
+     *
+     * @throws IOException
+     *          If the jar couldn't be opened.
+     * @throws ReflectiveOperationException
+     *          If the class couldn't be found.
+     */
+    public static Class< ? extends RobotController > loadClass( String className, File jar ) throws IOException, ReflectiveOperationException
+    {
+        ClassLoader parent = ControllerLoader.class.getClassLoader();
+        ClassLoader loader = parent;
+
+        if ( jar != null )
+        {
+            if ( !jar.isFile() ) throw new IOException( "No such jar: " + jar );
+
+            // never closed, the classes it loads might need more classes from it later on
+            loader = new URLClassLoader( new URL[] { jar.toURI().toURL() }, parent );
+        }
+
+        Class< ? > clazz = Class.forName( className, true, loader );
+        if ( !RobotController.class.isAssignableFrom( clazz ) )
+        {
+            throw new ClassCastException( className + " does not implement " + RobotController.class.getName() );
+        }
+
+        return clazz.asSubclass( RobotController.class );
+    }
+
+    /**
+     * Creates a new controller of the given class.
+     *
+     * @param clazz
+     *          The controller class, which needs a public no-argument constructor.
+     * @return The new controller.
+     *
+     * @throws ReflectiveOperationException
+     *          If the controller couldn't be created.
+     */
+    public static RobotController newInstance( Class< ? extends RobotController > clazz ) throws ReflectiveOperationException
+    {
+        return clazz.getConstructor().newInstance();
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a controller on a thread of its own, so a slow (or stuck) script can't
+ * hold up whichever thread is stepping the simulation.
+ *
+ * Each tick, the sensor readings are copied over to the controller's thread,
+ * and the stepping thread waits up to the time budget for the motor powers to
+ * come back. If they don't make it in time, the tick is counted as an overrun
+ * and the LatePolicy decides what happens next.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class ControllerThread
+{
+
+    /**
+     * What to do when the controller doesn't finish a tick within its budget.
+     */
+    public enum LatePolicy
+    {
+        /**
+         * Keep stepping with the motor powers from the last tick that did
+         * finish. The late result is picked up by whichever tick comes after
+         * it's done, and the controller isn't run again until then.
+         */
+        HOLD,
+
+        /** Wait for the controller to finish, no matter how long that takes. */
+        STALL
+    }
+
+    //
+    // Constants
+    //
+
+    /** How long shutdown() waits for the controller to stop [ms]. */
+    private static final long SHUTDOWN_TIMEOUT = 1000L;
+
+    //
+    // Fields
+    //
+
+    /** The controller being run. */
+    private final Controller controller;
+
+    /** The most time the controller may take each tick [ns]. */
+    private final long budget;
+
+    /** What to do when the controller runs over its budget. */
+    private final LatePolicy policy;
+
+    /** The thread the controller runs on. */
+    private final ExecutorService executor;
+
+    /** The controller's copy of the sensor readings. */
+    private float[] inputs;
+
+    /** The controller's copy of the motor powers. */
+    private float[] outputs;
+
+    /** The tick the controller is currently working on, or null if it's idle. */
+    private Future< ? > pending;
+
+    /** If the pending tick was started before the simulation was restored, so its powers no longer apply. */
+    private boolean stale = false;
+
+    /** If the controller's copy of the motor powers has to be replaced by the restored ones. */
+    private boolean restored = false;
+
+    /** The number of ticks the controller didn't finish within its budget. */
+    private volatile long overruns = 0;
+
+    /** The number of ticks the controller wasn't run at all, because it was still busy. */
+    private volatile long skippedTicks = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Starts a new thread for the given controller.
+     *
+     * @param controller
+     *          The controller to run.
+     * @param budget
+     *          The most time the controller may take each tick [ns].
+     * @param policy
+     *          What to do when the controller runs over its budget.
+     */
+    ControllerThread( Controller controller, long budget, LatePolicy policy )
+    {
+        this.controller = controller;
+        this.budget = budget;
+        this.policy = policy;
+        this.executor = Executors.newSingleThreadExecutor( runnable ->
+        {
+            Thread thread = new Thread( runnable, "Controller" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Runs the controller for a single tick. When this returns, the outputs
+     * hold the controller's newest motor powers.
+     *
+     * @param frameInputs
+     *          The robot's sensor readings for this tick.
+     * @param frameOutputs
+     *          The robot's motor powers.
+     */
+    void run( float[] frameInputs, float[] frameOutputs )
+    {
+        if ( pending != null )
+        {
+            if ( !pending.isDone() && policy == LatePolicy.HOLD )
+            {
+                // still working on an old tick, so keep on using the old powers
+                skippedTicks++;
+                return;
+            }
+
+            collect( frameOutputs );
+        }
+
+        if ( inputs == null || inputs.length != frameInputs.length ) inputs = new float[ frameInputs.length ];
+        if ( restored || outputs == null || outputs.length != frameOutputs.length )
+        {
+            // a stale tick may still have been writing to the old array, so this is a new one
+            outputs = frameOutputs.clone();
+            restored = false;
+        }
+        System.arraycopy( frameInputs, 0, inputs, 0, inputs.length );
+
+        // the task gets the arrays themselves, so it never sees the fields change
+        float[] tickInputs = inputs, tickOutputs = outputs;
+        pending = executor.submit( () -> loop( tickInputs, tickOutputs ) );
+
+        try
+        {
+            pending.get( budget, TimeUnit.NANOSECONDS );
+        }
+        catch ( TimeoutException e )
+        {
+            overruns++;
+            if ( policy == LatePolicy.HOLD ) return;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch ( ExecutionException e )
+        {
+            // loop() catches every Exception itself, so this is an Error
+            e.getCause().printStackTrace();
+        }
+
+        collect( frameOutputs );
+    }
+
+    /**
+     * Runs the controller, on the controller's thread.
+     *
+     * @param inputs
+     *          The controller's copy of the sensor readings.
+     * @param outputs
+     *          The controller's copy of the motor powers.
+     */
+    private void loop( float[] inputs, float[] outputs )
+    {
+        try
+        {
+            controller.loop( inputs, outputs );
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for the pending tick to finish, then copies the controller's
+     * motor powers into the robot's frame.
+     *
+     * @param frameOutputs
+     *          The robot's motor powers.
+     */
+    private void collect( float[] frameOutputs )
+    {
+        try
+        {
+            pending.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        catch ( ExecutionException e )
+        {
+            // loop() catches every Exception itself, so this is an Error
+            e.getCause().printStackTrace();
+        }
+
+        pending = null;
+        if ( stale )
+        {
+            stale = false;
+            return;
+        }
+
+        System.arraycopy( outputs, 0, frameOutputs, 0, frameOutputs.length );
+    }
+
+    /**
+     * Throws away the tick the controller is working on, if there is one, and
+     * its copy of the motor powers. This is called when the simulation is
+     * restored to an earlier state, so nothing from before then is collected
+     * over it. The controller is given the restored powers on its next tick.
+     */
+    void discardPending()
+    {
+        if ( pending != null ) stale = true;
+        restored = true;
+    }
+
+    /**
+     * Stops the controller's thread, interrupting the controller if it's
+     * still running, and waits a short while for it to finish.
+     *
+     * @return If the controller has stopped. If not, it's stuck and has been
+     *          abandoned, and may still be using the robot (and its world).
+     */
+    boolean shutdown()
+    {
+        executor.shutdownNow();
+        try
+        {
+            return executor.awaitTermination( SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            return executor.isTerminated();
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The number of ticks the controller didn't finish within its budget.
+     */
+    public long getOverruns()
+    {
+        return overruns;
+    }
+
+    /**
+     * @return The number of ticks the controller wasn't run at all, because it was
+     *          still busy with an earlier one.
+     */
+    public long getSkippedTicks()
+    {
+        return skippedTicks;
+    }
+
+}
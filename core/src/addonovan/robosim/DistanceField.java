@@ -0,0 +1,629 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * A grid holding the distance from every cell to the closest piece of static
+ * geometry in a world. Static bodies never move, so the grid is built once
+ * and from then on answers proximity queries with a single lookup, and ray
+ * casts by marching along the ray in steps as large as the grid says are
+ * safe, without going through Box2D at all.
+ *
+ * The geometry is rasterized at MIN_CELL_SIZE, or coarser for arenas too big
+ * for the grid to fit in MAX_CELLS, so distances are only accurate to about
+ * half a cell. If even MAX_CELL_SIZE is too fine for an arena, the field isn't
+ * built at all and isn't {@link #isAvailable() available}, so the ray casts
+ * have to go through Box2D instead.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class DistanceField
+{
+
+    //
+    // Constants
+    //
+
+    /** The size of a single cell in the grid, if the arena isn't too big for it [m]. */
+    static final float MIN_CELL_SIZE = 0.005f;
+
+    /** The coarsest the grid may be before it's not worth building [m]. */
+    static final float MAX_CELL_SIZE = 0.05f;
+
+    /** The most cells in the grid (16 MB worth of distances). */
+    static final long MAX_CELLS = 1L << 22;
+
+    /** How much coarser the cells are made each time the grid doesn't fit. */
+    private static final float COARSENING = 1.25f;
+
+    /** The number of cells left empty around the geometry. */
+    private static final int MARGIN = 2;
+
+    /** Stands in for an infinite distance in the transform, without overflowing. */
+    private static final float FAR = 1e20f;
+
+    //
+    // Fields
+    //
+
+    /** If the field was built, which it isn't for arenas too big for it. */
+    private final boolean available;
+
+    /** The size of a single cell in the grid [m]. */
+    private final float cellSize;
+
+    /** How far a point may be from the center of its cell, twice over [m]. */
+    private final float safety;
+
+    /** The smallest step taken while marching [m]. */
+    private final float minStep;
+
+    /** The position of the bottom left corner of the grid [m]. */
+    private final float originX, originY;
+
+    /** The size of the grid [cells]. */
+    private final int columns, rows;
+
+    /** The distance from each cell's center to the closest occupied cell's center [m], row by row. */
+    private final float[] distances;
+
+    /** The number of static bodies the field was built from. */
+    private final int staticBodies;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Builds the distance field for all of the static bodies in the world.
+     *
+     * @param world
+     *          The world to build the field for.
+     */
+    DistanceField( World world )
+    {
+        Array< Body > bodies = new Array<>( world.getBodyCount() );
+        world.getBodies( bodies );
+
+        // find the bounds of all the static geometry
+        float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+        Vector2 point = new Vector2();
+        int staticBodies = 0;
+        for ( Body body : bodies )
+        {
+            if ( body.getType() != BodyDef.BodyType.StaticBody ) continue;
+
+            staticBodies++;
+            for ( Fixture fixture : body.getFixtureList() )
+            {
+                expand( bounds, fixture, body.getTransform(), point );
+            }
+        }
+        this.staticBodies = staticBodies;
+
+        float width = bounds[ 2 ] - bounds[ 0 ];
+        float height = bounds[ 3 ] - bounds[ 1 ];
+
+        // coarsen the grid until it fits, if it ever does
+        float cellSize = MIN_CELL_SIZE;
+        while ( bounds[ 0 ] <= bounds[ 2 ] && cellCount( width, height, cellSize ) > MAX_CELLS && cellSize <= MAX_CELL_SIZE )
+        {
+            cellSize *= COARSENING;
+        }
+        this.cellSize = cellSize;
+        this.safety = cellSize * Math.sqrt( 2f );
+        this.minStep = cellSize / 2;
+
+        if ( bounds[ 0 ] > bounds[ 2 ] )
+        {
+            // nothing static in the world at all
+            available = true;
+            originX = originY = 0f;
+            columns = rows = 0;
+            distances = new float[ 0 ];
+            return;
+        }
+
+        if ( cellSize > MAX_CELL_SIZE )
+        {
+            // far too much of it, so leave it to Box2D
+            available = false;
+            originX = originY = 0f;
+            columns = rows = 0;
+            distances = new float[ 0 ];
+            return;
+        }
+
+        available = true;
+        originX = bounds[ 0 ] - MARGIN * cellSize;
+        originY = bounds[ 1 ] - MARGIN * cellSize;
+        columns = ( int ) java.lang.Math.ceil( width / cellSize ) + 2 * MARGIN;
+        rows = ( int ) java.lang.Math.ceil( height / cellSize ) + 2 * MARGIN;
+
+        distances = new float[ columns * rows ];
+        Arrays.fill( distances, FAR );
+
+        for ( Body body : bodies )
+        {
+            if ( body.getType() != BodyDef.BodyType.StaticBody ) continue;
+
+            for ( Fixture fixture : body.getFixtureList() )
+            {
+                rasterize( fixture, body.getTransform(), point );
+            }
+        }
+
+        transform();
+    }
+
+    //
+    // Queries
+    //
+
+    /**
+     * @param x
+     *          The x position [m].
+     * @param y
+     *          The y position [m].
+     * @return A lower bound on the distance to the closest static geometry
+     *          [m], which is 0 inside of it.
+     */
+    float distance( float x, float y )
+    {
+        if ( columns == 0 ) return Float.POSITIVE_INFINITY;
+
+        int column = ( int ) java.lang.Math.floor( ( x - originX ) / cellSize );
+        int row = ( int ) java.lang.Math.floor( ( y - originY ) / cellSize );
+
+        if ( column < 0 || row < 0 || column >= columns || row >= rows )
+        {
+            // everything static is inside of the grid, so the grid's edge is closer
+            float dx = Math.max( Math.max( originX - x, x - ( originX + columns * cellSize ) ), 0f );
+            float dy = Math.max( Math.max( originY - y, y - ( originY + rows * cellSize ) ), 0f );
+            return Math.magnitude( dx, dy );
+        }
+
+        return distances[ row * columns + column ];
+    }
+
+    /**
+     * Marches along a ray until it runs into static geometry.
+     *
+     * @param x
+     *          The x position of the start of the ray [m].
+     * @param y
+     *          The y position of the start of the ray [m].
+     * @param dirX
+     *          The x component of the ray's (unit) direction.
+     * @param dirY
+     *          The y component of the ray's (unit) direction.
+     * @param maxDistance
+     *          The length of the ray [m].
+     * @return The distance along the ray to the first static geometry [m],
+     *          or -1 if it didn't hit any.
+     */
+    float march( float x, float y, float dirX, float dirY, float maxDistance )
+    {
+        float last = 0f;
+        float t = 0f;
+        while ( t <= maxDistance )
+        {
+            float d = distance( x + dirX * t, y + dirY * t );
+            if ( d <= 0f )
+            {
+                // somewhere between the last sample and this one, so narrow it down
+                for ( int i = 0; i < 4; i++ )
+                {
+                    float mid = ( last + t ) / 2;
+                    if ( distance( x + dirX * mid, y + dirY * mid ) <= 0f ) t = mid;
+                    else last = mid;
+                }
+                return t;
+            }
+
+            last = t;
+            t += Math.max( d - safety, minStep );
+        }
+
+        return -1f;
+    }
+
+    /**
+     * @return If the field was built. If not, the static geometry was too
+     *          big for it, and march() never hits anything.
+     */
+    boolean isAvailable()
+    {
+        return available;
+    }
+
+    /**
+     * @return The size of a single cell in the grid [m].
+     */
+    float getCellSize()
+    {
+        return cellSize;
+    }
+
+    /**
+     * @return The number of static bodies the field was built from.
+     */
+    int getStaticBodyCount()
+    {
+        return staticBodies;
+    }
+
+    //
+    // Construction
+    //
+
+    /**
+     * @return The number of cells in a grid around geometry of the given
+     *          size, which may be far more than fit in an array.
+     */
+    private static long cellCount( float width, float height, float cellSize )
+    {
+        long columns = ( long ) java.lang.Math.ceil( width / cellSize ) + 2 * MARGIN;
+        long rows = ( long ) java.lang.Math.ceil( height / cellSize ) + 2 * MARGIN;
+        return columns * rows;
+    }
+
+    /**
+     * Expands the bounds to contain the fixture.
+     */
+    private static void expand( float[] bounds, Fixture fixture, Transform transform, Vector2 point )
+    {
+        Shape shape = fixture.getShape();
+        switch ( shape.getType() )
+        {
+            case Circle:
+            {
+                CircleShape circle = ( CircleShape ) shape;
+                transform.mul( point.set( circle.getPosition() ) );
+                float r = circle.getRadius();
+                include( bounds, point.x - r, point.y - r );
+                include( bounds, point.x + r, point.y + r );
+                break;
+            }
+
+            case Polygon:
+            {
+                PolygonShape polygon = ( PolygonShape ) shape;
+                for ( int i = 0; i < polygon.getVertexCount(); i++ )
+                {
+                    polygon.getVertex( i, point );
+                    transform.mul( point );
+                    include( bounds, point.x, point.y );
+                }
+                break;
+            }
+
+            case Edge:
+            {
+                EdgeShape edge = ( EdgeShape ) shape;
+                edge.getVertex1( point );
+                transform.mul( point );
+                include( bounds, point.x, point.y );
+                edge.getVertex2( point );
+                transform.mul( point );
+                include( bounds, point.x, point.y );
+                break;
+            }
+
+            case Chain:
+            {
+                ChainShape chain = ( ChainShape ) shape;
+                for ( int i = 0; i < chain.getVertexCount(); i++ )
+                {
+                    chain.getVertex( i, point );
+                    transform.mul( point );
+                    include( bounds, point.x, point.y );
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Expands the bounds to contain the point.
+     */
+    private static void include( float[] bounds, float x, float y )
+    {
+        bounds[ 0 ] = Math.min( bounds[ 0 ], x );
+        bounds[ 1 ] = Math.min( bounds[ 1 ], y );
+        bounds[ 2 ] = Math.max( bounds[ 2 ], x );
+        bounds[ 3 ] = Math.max( bounds[ 3 ], y );
+    }
+
+    /**
+     * Marks every cell whose center is covered by the fixture as occupied.
+     */
+    private void rasterize( Fixture fixture, Transform transform, Vector2 point )
+    {
+        Shape shape = fixture.getShape();
+        switch ( shape.getType() )
+        {
+            case Circle:
+            {
+                CircleShape circle = ( CircleShape ) shape;
+                transform.mul( point.set( circle.getPosition() ) );
+                float cx = point.x, cy = point.y, r = circle.getRadius();
+
+                for ( int row = rowOf( cy - r ); row <= rowOf( cy + r ); row++ )
+                {
+                    for ( int column = columnOf( cx - r ); column <= columnOf( cx + r ); column++ )
+                    {
+                        if ( Math.magnitude( centerX( column ) - cx, centerY( row ) - cy ) <= r )
+                        {
+                            distances[ row * columns + column ] = 0f;
+                        }
+                    }
+                }
+                break;
+            }
+
+            case Polygon:
+            {
+                PolygonShape polygon = ( PolygonShape ) shape;
+                int count = polygon.getVertexCount();
+                float[] xs = new float[ count ], ys = new float[ count ];
+                float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+                for ( int i = 0; i < count; i++ )
+                {
+                    polygon.getVertex( i, point );
+                    transform.mul( point );
+                    xs[ i ] = point.x;
+                    ys[ i ] = point.y;
+                    include( bounds, point.x, point.y );
+                }
+
+                for ( int row = rowOf( bounds[ 1 ] ); row <= rowOf( bounds[ 3 ] ); row++ )
+                {
+                    for ( int column = columnOf( bounds[ 0 ] ); column <= columnOf( bounds[ 2 ] ); column++ )
+                    {
+                        if ( inside( xs, ys, centerX( column ), centerY( row ) ) )
+                        {
+                            distances[ row * columns + column ] = 0f;
+                        }
+                    }
+                }
+
+                // a polygon that thin may not cover a single cell's center, so
+                // every cell its outline touches is marked as well
+                if ( width( xs, ys ) < 2 * cellSize )
+                {
+                    float touching = cellSize * Math.sqrt( 2f ) / 2;
+                    for ( int i = 0; i < count; i++ )
+                    {
+                        int j = ( i + 1 ) % count;
+                        rasterizeSegment( xs[ i ], ys[ i ], xs[ j ], ys[ j ], touching );
+                    }
+                }
+                break;
+            }
+
+            case Edge:
+            {
+                EdgeShape edge = ( EdgeShape ) shape;
+                Vector2 end = new Vector2();
+                edge.getVertex1( point );
+                edge.getVertex2( end );
+                rasterizeSegment( transform.mul( point ), transform.mul( end ) );
+                break;
+            }
+
+            case Chain:
+            {
+                ChainShape chain = ( ChainShape ) shape;
+                Vector2 end = new Vector2();
+                for ( int i = 0; i + 1 < chain.getVertexCount(); i++ )
+                {
+                    chain.getVertex( i, point );
+                    chain.getVertex( i + 1, end );
+                    rasterizeSegment( transform.mul( point ), transform.mul( end ) );
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Marks every cell the segment passes through as occupied. Segments have
+     * no thickness, so this is every cell whose center is within half a cell
+     * of it.
+     */
+    private void rasterizeSegment( Vector2 a, Vector2 b )
+    {
+        rasterizeSegment( a.x, a.y, b.x, b.y, cellSize / 2 );
+    }
+
+    /**
+     * Marks every cell whose center is within the given distance of the
+     * segment from (ax, ay) to (bx, by) as occupied.
+     */
+    private void rasterizeSegment( float ax, float ay, float bx, float by, float distance )
+    {
+        float dx = bx - ax, dy = by - ay;
+        float lengthSquared = dx * dx + dy * dy;
+
+        // every cell the segment touches is within a column or row of its bounds
+        for ( int row = rowOf( Math.min( ay, by ) - distance ); row <= rowOf( Math.max( ay, by ) + distance ); row++ )
+        {
+            for ( int column = columnOf( Math.min( ax, bx ) - distance ); column <= columnOf( Math.max( ax, bx ) + distance ); column++ )
+            {
+                float px = centerX( column ) - ax, py = centerY( row ) - ay;
+                float t = lengthSquared == 0f ? 0f : Math.max( 0f, Math.min( 1f, ( px * dx + py * dy ) / lengthSquared ) );
+                if ( Math.magnitude( px - t * dx, py - t * dy ) <= distance )
+                {
+                    distances[ row * columns + column ] = 0f;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The width of the convex polygon at its thinnest: the smallest
+     *          distance from one of its edges to the vertex furthest from it.
+     */
+    private static float width( float[] xs, float[] ys )
+    {
+        float width = Float.MAX_VALUE;
+        for ( int i = 0; i < xs.length; i++ )
+        {
+            int j = ( i + 1 ) % xs.length;
+            float dx = xs[ j ] - xs[ i ], dy = ys[ j ] - ys[ i ];
+            float length = Math.magnitude( dx, dy );
+            if ( length == 0f ) continue;
+
+            float furthest = 0f;
+            for ( int k = 0; k < xs.length; k++ )
+            {
+                furthest = Math.max( furthest, Math.abs( dx * ( ys[ k ] - ys[ i ] ) - dy * ( xs[ k ] - xs[ i ] ) ) / length );
+            }
+            width = Math.min( width, furthest );
+        }
+        return width;
+    }
+
+    /**
+     * @return If the point is inside of the convex polygon (in either winding).
+     */
+    private static boolean inside( float[] xs, float[] ys, float x, float y )
+    {
+        boolean positive = false, negative = false;
+        for ( int i = 0; i < xs.length; i++ )
+        {
+            int j = ( i + 1 ) % xs.length;
+            float cross = ( xs[ j ] - xs[ i ] ) * ( y - ys[ i ] ) - ( ys[ j ] - ys[ i ] ) * ( x - xs[ i ] );
+            if ( cross > 0f ) positive = true;
+            if ( cross < 0f ) negative = true;
+            if ( positive && negative ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Turns the grid of occupied cells into a grid of distances, using the
+     * separable exact euclidean distance transform (rows, then columns).
+     */
+    private void transform()
+    {
+        int size = java.lang.Math.max( columns, rows );
+        double[] f = new double[ size ];
+        double[] d = new double[ size ];
+        double[] z = new double[ size + 1 ];
+        int[] v = new int[ size ];
+
+        // squared distances along each row
+        for ( int row = 0; row < rows; row++ )
+        {
+            for ( int column = 0; column < columns; column++ ) f[ column ] = distances[ row * columns + column ] == 0f ? 0.0 : FAR;
+            transform( f, columns, d, v, z );
+            for ( int column = 0; column < columns; column++ ) distances[ row * columns + column ] = ( float ) java.lang.Math.min( d[ column ], FAR );
+        }
+
+        // then combine them down each column
+        for ( int column = 0; column < columns; column++ )
+        {
+            for ( int row = 0; row < rows; row++ ) f[ row ] = distances[ row * columns + column ];
+            transform( f, rows, d, v, z );
+            for ( int row = 0; row < rows; row++ ) distances[ row * columns + column ] = d[ row ] >= FAR ? FAR : ( float ) java.lang.Math.sqrt( d[ row ] ) * cellSize;
+        }
+    }
+
+    /**
+     * The one dimensional squared distance transform (Felzenszwalb &amp; Huttenlocher),
+     * in units of cells.
+     */
+    private static void transform( double[] f, int n, double[] d, int[] v, double[] z )
+    {
+        int k = 0;
+        v[ 0 ] = 0;
+        z[ 0 ] = -Double.MAX_VALUE;
+        z[ 1 ] = Double.MAX_VALUE;
+
+        for ( int q = 1; q < n; q++ )
+        {
+            double s = intersection( f, q, v[ k ] );
+            while ( s <= z[ k ] )
+            {
+                k--;
+                s = intersection( f, q, v[ k ] );
+            }
+            k++;
+            v[ k ] = q;
+            z[ k ] = s;
+            z[ k + 1 ] = Double.MAX_VALUE;
+        }
+
+        k = 0;
+        for ( int q = 0; q < n; q++ )
+        {
+            while ( z[ k + 1 ] < q ) k++;
+            double offset = q - v[ k ];
+            d[ q ] = offset * offset + f[ v[ k ] ];
+        }
+    }
+
+    /**
+     * @return Where the parabolas rooted at q and p intersect.
+     */
+    private static double intersection( double[] f, int q, int p )
+    {
+        return ( ( f[ q ] + ( double ) q * q ) - ( f[ p ] + ( double ) p * p ) ) / ( 2.0 * q - 2.0 * p );
+    }
+
+    private int columnOf( float x )
+    {
+        return java.lang.Math.min( columns - 1, java.lang.Math.max( 0, ( int ) java.lang.Math.floor( ( x - originX ) / cellSize ) ) );
+    }
+
+    private int rowOf( float y )
+    {
+        return java.lang.Math.min( rows - 1, java.lang.Math.max( 0, ( int ) java.lang.Math.floor( ( y - originY ) / cellSize ) ) );
+    }
+
+    private float centerX( int column )
+    {
+        return originX + ( column + 0.5f ) * cellSize;
+    }
+
+    private float centerY( int row )
+    {
+        return originY + ( row + 0.5f ) * cellSize;
+    }
+
+}
@@ -24,6 +24,8 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
 
+import java.util.function.Consumer;
+
 /**
  * A sensor which detects any objects within a certain distance.
  *
@@ -44,7 +46,7 @@ public class DistanceSensor implements Sensor
     //
 
     /** The robot to which this sensor is attached.*/
-    private final Robot robot;
+    private Robot robot;
 
     /** The vector that points to the position of this sensor on the robot. */
     private final Vector2 positionVector;
@@ -55,6 +57,15 @@ public class DistanceSensor implements Sensor
     /** The distance currently being read by the sensor. */
     private float distance = MAX_DISTANCE;
 
+    /** Scratch space for the start of the sensor's beam [m]. */
+    private final Vector2 start = new Vector2();
+
+    /** Scratch space for the end of the sensor's beam [m]. */
+    private final Vector2 end = new Vector2();
+
+    /** The drawing commands for this sensor, kept so rendering doesn't allocate. */
+    private final Consumer< ShapeRenderer > drawCommand = this::draw;
+
     //
     // Constructors
     //
@@ -71,7 +82,6 @@ public class DistanceSensor implements Sensor
      */
     public DistanceSensor( float x, float y, float angle )
     {
-        robot = Simulation.robot;
         this.angle = Math.toRadians( angle );
         positionVector = Units.pxToM( Math.vectorFrom( x, y, this.angle ) );
     }
@@ -93,57 +103,74 @@ public class DistanceSensor implements Sensor
     // Overrides
     //
 
+    @Override
+    public void attach( Robot robot )
+    {
+        this.robot = robot;
+    }
+
+    @Override
+    public int getFrameSize()
+    {
+        return 1;
+    }
+
+    @Override
+    public void read( float[] frame, int offset )
+    {
+        frame[ offset ] = getDistance();
+    }
+
     @Override
     public void render()
     {
-        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, sr ->
-        {
-            float localDistance = distance;
-            if ( localDistance < 0f )
-            {
-                localDistance = MAX_DISTANCE;
-            }
-
-            float alpha = 0.15f;
-            if ( localDistance > 0.001f )
-            {
-                alpha = ( 0.7f ) * ( 1 - ( localDistance / MAX_DISTANCE ) ) + 0.3f;
-            }
-
-            sr.setColor( new Color( 1, 1, 0, alpha ) );
-            Vector2 start = getStartPosition();
-            Vector2 end = getEndPosition( start, localDistance );
-
-            sr.rectLine( Units.mToPx( start ), Units.mToPx( end ), 2 );
-        } );
+        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, drawCommand );
     }
 
     @Override
     public void update()
     {
-        Vector2 start = getStartPosition();
-        Vector2 end = getEndPosition( start, MAX_DISTANCE );
+        getStartPosition( start );
+        float beamAngle = angle + robot.getAngle();
 
-        distance = -1f;
-        Simulation.getWorld().rayCast( ( fixture, point, normal, fraction ) ->
+        distance = robot.getSimulation().getRayCaster().cast( robot, start.x, start.y, Math.cos( beamAngle ), Math.sin( beamAngle ), MAX_DISTANCE );
+    }
+
+    /**
+     * Draws the sensor's beam.
+     *
+     * @param sr
+     *          The renderer to draw with.
+     */
+    private void draw( ShapeRenderer sr )
+    {
+        float localDistance = distance;
+        if ( localDistance < 0f )
         {
-            if ( fraction > 1f ) return -1f;
-            else
-            {
-                float newDistance = fraction * MAX_DISTANCE;
-                distance = Math.max( distance, newDistance );
-                return 0f;
-            }
-        }, start, end );
+            localDistance = MAX_DISTANCE;
+        }
+
+        float alpha = 0.15f;
+        if ( localDistance > 0.001f )
+        {
+            alpha = ( 0.7f ) * ( 1 - ( localDistance / MAX_DISTANCE ) ) + 0.3f;
+        }
+
+        sr.setColor( 1f, 1f, 0f, alpha );
+        getStartPosition( start );
+        getEndPosition( start, localDistance, end );
 
+        sr.rectLine( Units.mToPx( start, start ), Units.mToPx( end, end ), 2 );
     }
 
     /**
+     * @param out
+     *          The vector to store the result in.
      * @return The starting position (where the sensor is on the robot).
      */
-    private Vector2 getStartPosition()
+    private Vector2 getStartPosition( Vector2 out )
     {
-        return Math.vectorFrom( positionVector.len(), robot.getAngle() + positionVector.angle() ).add( robot.getX(), robot.getY() );
+        return Math.vectorFrom( positionVector.len(), robot.getAngle() + positionVector.angle(), out ).add( robot.getX(), robot.getY() );
     }
 
     /**
@@ -151,12 +178,14 @@ public class DistanceSensor implements Sensor
      *          The starting position (where the sensor is on the robot).
      * @param length
      *          The length of the line to fetch [m].
+     * @param out
+     *          The vector to store the result in.
      *
      * @return The ending position of the line of the distance sensor's range.
      */
-    private Vector2 getEndPosition( Vector2 start, float length )
+    private Vector2 getEndPosition( Vector2 start, float length, Vector2 out )
     {
-        return Math.vectorFrom( length, angle + robot.getAngle() ).add( start.x, start.y );
+        return Math.vectorFrom( length, angle + robot.getAngle(), out ).add( start.x, start.y );
     }
 
 }
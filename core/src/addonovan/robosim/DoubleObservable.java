@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+
+/**
+ * An {@link Observable} specialized for a double, so reading it, setting it and
+ * notifying the listeners never boxes the value.
+ *
+ * The listeners are kept in an array which is replaced (never modified) when
+ * a listener is attached, so dispatching is just a loop over whatever array
+ * was current, without any locking.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public class DoubleObservable
+{
+
+    //
+    // Fields
+    //
+
+    /** The observers attached to this state. */
+    private final AtomicReference< DoubleConsumer[] > observers = new AtomicReference<>( new DoubleConsumer[ 0 ] );
+
+    /** The backing field of this observer. */
+    private volatile double value;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Initializes the observable with the given default value.
+     *
+     * @param defaultValue
+     *          The default value of the backing field.
+     */
+    public DoubleObservable( double defaultValue )
+    {
+        value = defaultValue;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Attaches a new listener.
+     *
+     * @param listener
+     *          The listener for state changes.
+     */
+    public void attach( DoubleConsumer listener )
+    {
+        DoubleConsumer[] current, updated;
+        do
+        {
+            current = observers.get();
+            updated = Arrays.copyOf( current, current.length + 1 );
+            updated[ current.length ] = listener;
+        }
+        while ( !observers.compareAndSet( current, updated ) );
+    }
+
+    /**
+     * Attaches a new listener which is called on the given executor, with
+     * changes coalesced: however often the value is set, the listener is
+     * called at most once per interval, and only with the latest value.
+     *
+     * @param listener
+     *          The listener for state changes.
+     * @param executor
+     *          The executor to call the listener on (e.g. SwingUtilities::invokeLater).
+     * @param interval
+     *          The minimum time between calls to the listener.
+     * @param unit
+     *          The unit of the interval.
+     */
+    public void attach( DoubleConsumer listener, Executor executor, long interval, TimeUnit unit )
+    {
+        Coalescer coalescer = new Coalescer( () -> listener.accept( value ), executor, unit.toNanos( interval ) );
+        attach( changed -> coalescer.signal() );
+    }
+
+    /**
+     * Sets the value of this observable. This will trigger the
+     * listeners.
+     *
+     * @param value
+     *          The backing value of this observable.
+     */
+    public void setValue( double value )
+    {
+        this.value = value;
+
+        DoubleConsumer[] observers = this.observers.get();
+        for ( int i = 0; i < observers.length; i++ )
+        {
+            observers[ i ].accept( value );
+        }
+    }
+
+    /**
+     * @return The value of this observable.
+     */
+    public double getValue()
+    {
+        return value;
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+
+/**
+ * Sums up the forces of a robot's motors over a tick, so they're handed to
+ * Box2D as a single force and torque instead of one force per motor.
+ *
+ * The pose of the body is read once at the start of the tick, and the torque
+ * of each force is worked out the same way Box2D does it, so the robot moves
+ * exactly as it would if every motor applied its own force.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class Drivetrain
+{
+
+    //
+    // Fields
+    //
+
+    /** The body the forces are applied to. */
+    private final Body body;
+
+    /** The position of the body at the start of the tick [m]. */
+    private float x, y;
+
+    /** The angle of the body at the start of the tick [rad]. */
+    private float angle;
+
+    /** The net force of the motors this tick [N]. */
+    private float forceX, forceY;
+
+    /** The net torque of the motors this tick [N*m]. */
+    private float torque;
+
+    /** If any forces have been added this tick. */
+    private boolean pending = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param body
+     *          The body the forces are applied to.
+     */
+    Drivetrain( Body body )
+    {
+        this.body = body;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Starts a new tick, reading the body's current pose.
+     */
+    void begin()
+    {
+        Vector2 position = body.getPosition(); // one native call for both coordinates
+        x = position.x;
+        y = position.y;
+        angle = body.getAngle();
+
+        forceX = forceY = torque = 0f;
+        pending = false;
+    }
+
+    /**
+     * Adds a force to this tick's total.
+     *
+     * @param force
+     *          The force [N].
+     * @param offset
+     *          Where the force is applied, relative to the body's position [m].
+     */
+    void add( Vector2 force, Vector2 offset )
+    {
+        // Box2D takes the arm from the world point back to the center, which
+        // isn't always exactly the offset in floating point
+        float armX = ( x + offset.x ) - x;
+        float armY = ( y + offset.y ) - y;
+
+        forceX += force.x;
+        forceY += force.y;
+        torque += armX * force.y - armY * force.x;
+        pending = true;
+    }
+
+    /**
+     * Applies this tick's net force and torque to the body.
+     */
+    void apply()
+    {
+        if ( !pending ) return;
+
+        body.applyForceToCenter( forceX, forceY, true );
+        body.applyTorque( torque, true );
+        pending = false;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The angle of the body at the start of the tick [rad].
+     */
+    float getAngle()
+    {
+        return angle;
+    }
+
+}
@@ -28,4 +28,14 @@ package addonovan.robosim;
  */
 public interface HardwareDevice extends Renderable
 {
+
+    /**
+     * Attaches this device to the given robot. This is called by the robot
+     * when the device is added to it.
+     *
+     * @param robot
+     *          The robot the device is now attached to.
+     */
+    void attach( Robot robot );
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.List;
+
+/**
+ * Adapts a RobotController to the hardware frame that the simulation passes
+ * around each tick.
+ *
+ * The controller works on the live robot rather than the frame, so this must
+ * only ever be run on the thread stepping the simulation (or while it waits),
+ * never on a {@link ControllerThread}.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class JavaController implements Controller
+{
+
+    //
+    // Fields
+    //
+
+    /** The controller being adapted. */
+    private final RobotController controller;
+
+    /** The robot being controlled. */
+    private final Robot robot;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Sets up the controller's hardware on the robot, and adapts it.
+     *
+     * @param controller
+     *          The controller to adapt.
+     * @param robot
+     *          The robot to control.
+     */
+    JavaController( RobotController controller, Robot robot )
+    {
+        this.controller = controller;
+        this.robot = robot;
+
+        controller.init( robot );
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void loop( float[] inputs, float[] outputs )
+    {
+        // the controller reads the sensors itself, we just need to collect the motor powers
+        controller.loop( robot );
+
+        List< Motor > motors = robot.getMotors();
+        for ( int i = 0; i < outputs.length; i++ )
+        {
+            outputs[ i ] = motors.get( i ).power;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies with a fixed number of buckets, so recording a
+ * value never allocates and takes a handful of instructions.
+ *
+ * Values below 16 ns get a bucket each; above that, every power of two is
+ * split into 16 buckets, so any percentile is accurate to within 1/16th
+ * (6.25%) of its value. The maximum is kept exactly.
+ *
+ * A histogram should only be recorded into by one thread. It may be read
+ * from another thread, but the numbers may then be slightly out of date
+ * with each other.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class LatencyHistogram
+{
+
+    //
+    // Constants
+    //
+
+    /** The number of bits of each value kept below its highest set bit. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** The number of buckets each power of two is split into. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets, enough for any positive long. */
+    private static final int BUCKETS = ( Long.SIZE - SUB_BUCKET_BITS ) * SUB_BUCKETS;
+
+    //
+    // Fields
+    //
+
+    /** The number of values in each bucket. */
+    private final long[] counts = new long[ BUCKETS ];
+
+    /** The number of values recorded. */
+    private long count = 0L;
+
+    /** The sum of the values recorded. */
+    private long total = 0L;
+
+    /** The largest value recorded. */
+    private long max = 0L;
+
+    //
+    // Actions
+    //
+
+    /**
+     * Records a value.
+     *
+     * @param value
+     *          The value to record [ns], negative values are counted as 0.
+     */
+    public void record( long value )
+    {
+        if ( value < 0L ) value = 0L;
+
+        counts[ bucketOf( value ) ]++;
+        count++;
+        total += value;
+        if ( value > max ) max = value;
+    }
+
+    /**
+     * Adds every value recorded by the other histogram to this one.
+     *
+     * @param other
+     *          The histogram to add.
+     */
+    public void add( LatencyHistogram other )
+    {
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[ i ] += other.counts[ i ];
+        }
+        count += other.count;
+        total += other.total;
+        max = java.lang.Math.max( max, other.max );
+    }
+
+    /**
+     * Forgets every value recorded.
+     */
+    public void reset()
+    {
+        Arrays.fill( counts, 0L );
+        count = 0L;
+        total = 0L;
+        max = 0L;
+    }
+
+    /**
+     * @param value
+     *          A value [ns].
+     * @return The index of the bucket the value goes in.
+     */
+    private static int bucketOf( long value )
+    {
+        if ( value < SUB_BUCKETS ) return ( int ) value;
+
+        int shift = ( Long.SIZE - 1 - Long.numberOfLeadingZeros( value ) ) - SUB_BUCKET_BITS;
+        return ( shift + 1 ) * SUB_BUCKETS + ( int ) ( ( value >>> shift ) - SUB_BUCKETS );
+    }
+
+    /**
+     * @param bucket
+     *          The index of a bucket.
+     * @return The largest value which goes in the bucket [ns].
+     */
+    private static long highestIn( int bucket )
+    {
+        if ( bucket < SUB_BUCKETS ) return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = ( long ) ( SUB_BUCKETS + bucket % SUB_BUCKETS ) << shift;
+        return lowest + ( 1L << shift ) - 1;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @param percentile
+     *          The percentile, from 0 to 100.
+     * @return The value which the given percentage of the values are at or
+     *          below [ns], or 0 if nothing has been recorded.
+     */
+    public long getPercentile( double percentile )
+    {
+        if ( count == 0L ) return 0L;
+
+        long rank = java.lang.Math.max( 1L, ( long ) java.lang.Math.ceil( percentile / 100.0 * count ) );
+        long seen = 0L;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts[ i ];
+            if ( seen >= rank ) return java.lang.Math.min( highestIn( i ), max );
+        }
+        return max;
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return The mean of the values recorded [ns], or 0 if nothing has been recorded.
+     */
+    public double getMean()
+    {
+        return count == 0L ? 0.0 : ( double ) total / count;
+    }
+
+    /**
+     * @return The largest value recorded [ns].
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.function.Consumer;
+
+/**
+ * A scanning range finder, which measures the distance along a fan of evenly
+ * spaced beams every tick.
+ *
+ * The whole scan is taken at once: the sensor's pose is read from the robot
+ * a single time, the beam directions are rotated with precomputed sines and
+ * cosines, and every beam is cast by the simulation's {@link RayCaster} into
+ * the same preallocated array. The scan is reported to the controller as one
+ * value per beam, in the same units as the {@link DistanceSensor}.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public class LidarSensor implements Sensor
+{
+
+    /** The default maximum distance each beam can detect things [m]. */
+    public static final float MAX_DISTANCE = 2.55f;
+
+    //
+    // Fields
+    //
+
+    /** The robot to which this sensor is attached.*/
+    private Robot robot;
+
+    /** The position of this sensor on the robot [m]. */
+    private final Vector2 positionVector;
+
+    /** The maximum distance each beam can detect things [m]. */
+    private final float range;
+
+    /** The cosine of each beam's angle (relative to the robot). */
+    private final float[] beamCos;
+
+    /** The sine of each beam's angle (relative to the robot). */
+    private final float[] beamSin;
+
+    /** The distance read along each beam [m], or -1 if nothing was hit. */
+    private final float[] distances;
+
+    /** The start of the beams in the last scan [m]. */
+    private float startX, startY;
+
+    /** The angle of the robot in the last scan [rad]. */
+    private float robotAngle;
+
+    /** The drawing commands for this sensor, kept so rendering doesn't allocate. */
+    private final Consumer< ShapeRenderer > drawCommand = this::draw;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a new lidar sensor with the default range.
+     *
+     * @param x
+     *          The x position on the robot (relative to its center) [px].
+     * @param y
+     *          The y position on the robot (relative to its center) [px].
+     * @param angle
+     *          The angle of the middle of the scan (relative to the robot) [°].
+     * @param fieldOfView
+     *          The angle between the first and last beams [°]. A full 360° scan
+     *          doesn't repeat its first beam.
+     * @param beams
+     *          The number of beams in each scan.
+     */
+    public LidarSensor( float x, float y, float angle, float fieldOfView, int beams )
+    {
+        this( x, y, angle, fieldOfView, beams, MAX_DISTANCE );
+    }
+
+    /**
+     * Constructs a new lidar sensor.
+     *
+     * @param x
+     *          The x position on the robot (relative to its center) [px].
+     * @param y
+     *          The y position on the robot (relative to its center) [px].
+     * @param angle
+     *          The angle of the middle of the scan (relative to the robot) [°].
+     * @param fieldOfView
+     *          The angle between the first and last beams [°]. A full 360° scan
+     *          doesn't repeat its first beam.
+     * @param beams
+     *          The number of beams in each scan.
+     * @param range
+     *          The maximum distance each beam can detect things [m].
+     */
+    public LidarSensor( float x, float y, float angle, float fieldOfView, int beams, float range )
+    {
+        if ( beams < 1 )
+        {
+            throw new IllegalArgumentException( "A lidar needs at least one beam. (was " + beams + ")" );
+        }
+        if ( fieldOfView < 0f || fieldOfView > 360f )
+        {
+            throw new IllegalArgumentException( "Field of view must be on the interval [0, 360]. (was " + fieldOfView + ")" );
+        }
+        if ( range <= 0f )
+        {
+            throw new IllegalArgumentException( "Range must be positive. (was " + range + ")" );
+        }
+
+        this.range = range;
+        positionVector = Units.pxToM( new Vector2( x, y ) );
+
+        beamCos = new float[ beams ];
+        beamSin = new float[ beams ];
+        distances = new float[ beams ];
+
+        // a full circle would put the last beam on top of the first one
+        float gaps = ( fieldOfView >= 360f || beams == 1 ) ? beams : beams - 1;
+        float step = Math.toRadians( fieldOfView ) / gaps;
+        float first = Math.toRadians( angle ) - ( beams == 1 ? 0f : Math.toRadians( fieldOfView ) / 2 );
+        if ( fieldOfView >= 360f ) first = Math.toRadians( angle ) - Math.PI;
+
+        for ( int i = 0; i < beams; i++ )
+        {
+            float beamAngle = first + step * i;
+            beamCos[ i ] = Math.cos( beamAngle );
+            beamSin[ i ] = Math.sin( beamAngle );
+            distances[ i ] = -1f;
+        }
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The number of beams in each scan.
+     */
+    public int getBeamCount()
+    {
+        return distances.length;
+    }
+
+    /**
+     * @param beam
+     *          The index of the beam, from the most clockwise one.
+     * @return The distance [cm], or -1 if no distance was sensed.
+     */
+    public int getDistance( int beam )
+    {
+        float distance = distances[ beam ];
+        if ( distance < 0f ) return -1;
+        return Math.round( distance * 100 );
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void attach( Robot robot )
+    {
+        this.robot = robot;
+    }
+
+    @Override
+    public int getFrameSize()
+    {
+        return distances.length;
+    }
+
+    @Override
+    public void read( float[] frame, int offset )
+    {
+        for ( int i = 0; i < distances.length; i++ )
+        {
+            frame[ offset + i ] = getDistance( i );
+        }
+    }
+
+    @Override
+    public void render()
+    {
+        Simulation.renderShape( ShapeRenderer.ShapeType.Line, drawCommand );
+    }
+
+    @Override
+    public void update()
+    {
+        // read the pose once for the whole scan
+        robotAngle = robot.getAngle();
+        float cos = Math.cos( robotAngle );
+        float sin = Math.sin( robotAngle );
+
+        startX = robot.getX() + positionVector.x * cos - positionVector.y * sin;
+        startY = robot.getY() + positionVector.x * sin + positionVector.y * cos;
+
+        RayCaster rayCaster = robot.getSimulation().getRayCaster();
+        for ( int i = 0; i < distances.length; i++ )
+        {
+            // rotate the beam by the robot's angle
+            float dx = beamCos[ i ] * cos - beamSin[ i ] * sin;
+            float dy = beamSin[ i ] * cos + beamCos[ i ] * sin;
+
+            distances[ i ] = rayCaster.cast( robot, startX, startY, dx, dy, range );
+        }
+    }
+
+    /**
+     * Draws each beam out to whatever it hit.
+     *
+     * @param sr
+     *          The renderer to draw with.
+     */
+    private void draw( ShapeRenderer sr )
+    {
+        float cos = Math.cos( robotAngle );
+        float sin = Math.sin( robotAngle );
+
+        float x = Units.mToPx( startX );
+        float y = Units.mToPx( startY );
+
+        for ( int i = 0; i < distances.length; i++ )
+        {
+            float distance = distances[ i ];
+            if ( distance < 0f )
+            {
+                distance = range;
+                sr.setColor( 1f, 0f, 0f, 0.15f );
+            }
+            else
+            {
+                sr.setColor( 1f, 0f, 0f, 0.7f * ( 1 - ( distance / range ) ) + 0.3f );
+            }
+
+            float length = Units.mToPx( distance );
+            float dx = beamCos[ i ] * cos - beamSin[ i ] * sin;
+            float dy = beamSin[ i ] * cos + beamCos[ i ] * sin;
+            sr.line( x, y, x + dx * length, y + dy * length );
+        }
+    }
+
+}
@@ -219,10 +219,25 @@ public final class Math
      */
     public static Vector2 vectorFrom( float magnitude, float angle )
     {
-        Vector2 v = new Vector2( 1f, 1f );
-        v.setLength( abs( magnitude ) );
-        v.setAngleRad( angle );
-        return v;
+        return vectorFrom( magnitude, angle, new Vector2() );
+    }
+
+    /**
+     * Sets the output vector to the vector with the given magnitude and angle.
+     * This doesn't allocate anything.
+     *
+     * @param magnitude
+     *          The magnitude (length) of the vector.
+     * @param angle
+     *          The angle of the vector.
+     * @param out
+     *          The vector to store the result in.
+     * @return out, for chaining.
+     */
+    public static Vector2 vectorFrom( float magnitude, float angle, Vector2 out )
+    {
+        float length = abs( magnitude );
+        return out.set( length * cos( angle ), length * sin( angle ) );
     }
 
     /**
@@ -243,6 +258,25 @@ public final class Math
         return vectorFrom( magnitude( x, y ), angle );
     }
 
+    /**
+     * The same as vectorFrom( x, y, angle ), but stores the result in the
+     * output vector instead of allocating a new one.
+     *
+     * @param x
+     *          The x component of the magnitude.
+     * @param y
+     *          The y component of the magnitude.
+     * @param angle
+     *          The angle (radians) of the vector.
+     * @param out
+     *          The vector to store the result in.
+     * @return out, for chaining.
+     */
+    public static Vector2 vectorFrom( float x, float y, float angle, Vector2 out )
+    {
+        return vectorFrom( magnitude( x, y ), angle, out );
+    }
+
     /**
      * Creates a vector with the given input x and y components (
      * which will be converted into a magnitude) then adds the angle
@@ -258,9 +292,28 @@ public final class Math
      * @return The resultant vector after the transformations.
      */
     public static Vector2 vectorFromAngle( float x, float y, float worldAngle )
+    {
+        return vectorFromAngle( x, y, worldAngle, new Vector2() );
+    }
+
+    /**
+     * The same as vectorFromAngle( x, y, worldAngle ), but stores the result
+     * in the output vector instead of allocating a new one.
+     *
+     * @param x
+     *          The x component of the input vector.
+     * @param y
+     *          The y component of the input vector.
+     * @param worldAngle
+     *          The world angle this vector is rotate by.
+     * @param out
+     *          The vector to store the result in.
+     * @return out, for chaining.
+     */
+    public static Vector2 vectorFromAngle( float x, float y, float worldAngle, Vector2 out )
     {
         float localAngle = atan( x, y );
-        return vectorFrom( magnitude( x, y ), worldAngle + localAngle );
+        return vectorFrom( magnitude( x, y ), worldAngle + localAngle, out );
     }
 
 }
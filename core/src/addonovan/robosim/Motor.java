@@ -25,6 +25,8 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
 
+import java.util.function.Consumer;
+
 /**
  * A motor that's attached to a robot.
  *
@@ -38,7 +40,8 @@ public class Motor implements HardwareDevice
     // Fields
     //
 
-    private final Robot robot;
+    /** The robot this motor is attached to. */
+    private Robot robot;
 
     /** The vector that points to the location of the motor [m].*/
     private final Vector2 position;
@@ -46,6 +49,18 @@ public class Motor implements HardwareDevice
     /** The power of this motor [-1f, 1f]*/
     public float power = 0.0f;
 
+    /** Scratch space for the force applied by the motor [N]. */
+    private final Vector2 force = new Vector2();
+
+    /** Scratch space for where the motor is drawn from [px]. */
+    private final Vector2 start = new Vector2();
+
+    /** Scratch space for where the motor is drawn to [px]. */
+    private final Vector2 end = new Vector2();
+
+    /** The drawing commands for this motor, kept so rendering doesn't allocate. */
+    private final Consumer< ShapeRenderer > drawCommand = this::draw;
+
     //
     // Constructors
     //
@@ -60,48 +75,70 @@ public class Motor implements HardwareDevice
      */
     public Motor( float x, float y )
     {
-        robot = Simulation.robot;
-        position = Units.pxToM( Math.vectorFromAngle( x, y, robot.getAngle() ) );
+        position = Units.pxToM( Math.vectorFromAngle( x, y, 0f ) );
+    }
+
+    /**
+     * Constructs a new motor at exactly the given position, e.g. one read
+     * back from a recording.
+     *
+     * @param position
+     *          The position on the robot [m].
+     */
+    Motor( Vector2 position )
+    {
+        this.position = new Vector2( position );
     }
 
     //
-    // Overrides
+    // Getters
     //
 
-    @Override
-    public void render()
+    /**
+     * @return The position of this motor on the robot [m].
+     */
+    Vector2 getPosition()
     {
-        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, sr ->
-        {
-            sr.setColor( Color.RED );
+        return position;
+    }
 
-            Vector2 start = Units.mToPx( getStartPosition() );
-            Vector2 end = Units.mToPx( getEndPosition() );
+    //
+    // Overrides
+    //
 
-            sr.circle( start.x, start.y, 3 );
-            sr.rectLine( start, end, 2 );
+    @Override
+    public void attach( Robot robot )
+    {
+        this.robot = robot;
+    }
 
-        } );
+    @Override
+    public void render()
+    {
+        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, drawCommand );
     }
 
+    /**
+     * Adds this motor's force to the robot's drivetrain, which applies it
+     * along with every other motor's at the end of the robot's update.
+     */
     @Override
     public void update()
     {
         if ( power < -1f ) power = -1f;
         if ( power > 1f ) power = 1f;
 
-        // apply the force to the robot
-        Vector2 position = robot.getBody().getPosition().add( this.position );
+        Drivetrain drivetrain = robot.getDrivetrain();
 
-        float angle = robot.getAngle();
+        float angle = drivetrain.getAngle();
         if ( power < 0 )
         {
             angle -= Math.PI;
         }
 
-        Vector2 force = Math.vectorFrom( 48.65f * power, angle );
+        Math.vectorFrom( 48.65f * power, angle, force );
 
-        robot.getBody().applyForce( force, position, true );
+        drivetrain.add( force, position );
     }
 
     //
@@ -109,26 +146,49 @@ public class Motor implements HardwareDevice
     //
 
     /**
+     * Draws the motor.
+     *
+     * @param sr
+     *          The renderer to draw with.
+     */
+    private void draw( ShapeRenderer sr )
+    {
+        sr.setColor( Color.RED );
+
+        Units.mToPx( getStartPosition( start ), start );
+        Units.mToPx( getEndPosition( end ), end );
+
+        sr.circle( start.x, start.y, 3 );
+        sr.rectLine( start, end, 2 );
+    }
+
+    /**
+     * @param out
+     *          The vector to store the result in.
      * @return The position where the motor is on the robot.
      */
-    private Vector2 getStartPosition()
+    private Vector2 getStartPosition( Vector2 out )
     {
-        return Math.vectorFrom( position.len(), position.angleRad() + robot.getAngle() ).add( robot.getX(), robot.getY() );
+        return Math.vectorFrom( position.len(), position.angleRad() + robot.getAngle(), out ).add( robot.getX(), robot.getY() );
     }
 
     /**
+     * @param out
+     *          The vector to store the result in.
      * @return The ending position (how much the motor is power and which direction).
      */
-    private Vector2 getEndPosition()
+    private Vector2 getEndPosition( Vector2 out )
     {
-        Vector2 start = getStartPosition();
+        getStartPosition( out );
+        float startX = out.x;
+        float startY = out.y;
 
         float angle = robot.getAngle();
         if ( power < 0 ) angle -= Math.PI;
 
         float scale = Math.sqrt( Math.abs( power ) );
 
-        return Math.vectorFrom( scale * Robot.WIDTH_M * 0.4f, angle ).add( start.x, start.y );
+        return Math.vectorFrom( scale * Robot.WIDTH_M * 0.4f, angle, out ).add( startX, startY );
     }
 
 }
@@ -20,14 +20,21 @@
 
 package addonovan.robosim;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
  * An implementation of the observable pattern for any value. It was easier to
  * write this from scratch than try to use the java.util version.
  *
+ * The value may be set and listeners may be attached from any thread. Plain
+ * listeners are called on whichever thread sets the value; listeners attached
+ * with an executor are called on that executor instead, at most once per
+ * interval, with only the latest value.
+ *
  * @author addonovan
  * @since 11/13/16
  */
@@ -35,10 +42,10 @@ public class Observable< T >
 {
 
     /** The observers attached to this state. */
-    private List< Consumer< T > > observers = new ArrayList<>();
+    private final List< Consumer< T > > observers = new CopyOnWriteArrayList<>();
 
     /** The backing field of this observer. */
-    private T value = null;
+    private volatile T value = null;
 
     //
     // Constructors
@@ -78,12 +85,36 @@ public class Observable< T >
         observers.add( listener );
     }
 
+    /**
+     * Attaches a new listener which is called on the given executor, with
+     * changes coalesced: however often the value is set, the listener is
+     * called at most once per interval, and only with the latest value.
+     *
+     * @param listener
+     *          The listener for state changes.
+     * @param executor
+     *          The executor to call the listener on (e.g. SwingUtilities::invokeLater).
+     * @param interval
+     *          The minimum time between calls to the listener.
+     * @param unit
+     *          The unit of the interval.
+     */
+    public void attach( Consumer< T > listener, Executor executor, long interval, TimeUnit unit )
+    {
+        Coalescer coalescer = new Coalescer( () -> listener.accept( value ), executor, unit.toNanos( interval ) );
+        observers.add( changed -> coalescer.signal() );
+    }
+
     /**
      * Dispatches all the listeners as if there was a state change.
      */
     private void dispatchListeners()
     {
-        observers.forEach( booleanConsumer -> booleanConsumer.accept( value ) );
+        T value = this.value;
+        for ( Consumer< T > observer : observers )
+        {
+            observer.accept( value );
+        }
     }
 
     /**
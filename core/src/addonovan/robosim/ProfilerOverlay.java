@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Draws the latency of each phase of the ticks over the top of the canvas.
+ * The text is only rebuilt a few times a second, so the numbers can be read
+ * and drawing them doesn't allocate every frame.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class ProfilerOverlay implements Disposable
+{
+
+    //
+    // Constants
+    //
+
+    /** The time between updates of the numbers [ns]. */
+    private static final long REFRESH_INTERVAL = 250_000_000L;
+
+    /** The headers of the columns. */
+    private static final String[] HEADERS = { "phase [us]", "count", "p50", "p99", "max" };
+
+    /** The width of the phase name column [px]. */
+    private static final float NAME_WIDTH = 90f;
+
+    /** The width of each of the number columns [px]. */
+    private static final float COLUMN_WIDTH = 64f;
+
+    /** The space around the table [px]. */
+    private static final float MARGIN = 8f;
+
+    /** The colour behind the table. */
+    private static final Color BACKGROUND = new Color( 0f, 0f, 0f, 0.7f );
+
+    //
+    // Fields
+    //
+
+    /** Draws the text. */
+    private final SpriteBatch batch = new SpriteBatch();
+
+    /** The font the text is drawn in. */
+    private final BitmapFont font = new BitmapFont();
+
+    /** The text of each cell, by row then column. */
+    private String[][] cells = new String[ 0 ][];
+
+    /** When the numbers are next updated, from System.nanoTime(). */
+    private long nextRefresh = 0L;
+
+    //
+    // Actions
+    //
+
+    /**
+     * Draws the overlay.
+     *
+     * @param profiler
+     *          The profiler whose numbers are shown.
+     * @param shapeRenderer
+     *          The renderer to draw the background with, in screen coordinates.
+     */
+    void render( TickProfiler profiler, ShapeRenderer shapeRenderer )
+    {
+        long now = System.nanoTime();
+        if ( now - nextRefresh >= 0L )
+        {
+            refresh( profiler );
+            nextRefresh = now + REFRESH_INTERVAL;
+        }
+
+        float lineHeight = font.getLineHeight();
+        float width = NAME_WIDTH + COLUMN_WIDTH * ( HEADERS.length - 1 );
+        float height = lineHeight * cells.length;
+        float top = Gdx.graphics.getHeight() - MARGIN;
+
+        shapeRenderer.begin( ShapeRenderer.ShapeType.Filled );
+        shapeRenderer.setColor( BACKGROUND );
+        shapeRenderer.rect( 0f, top - height - MARGIN, width + 2 * MARGIN, height + 2 * MARGIN );
+        shapeRenderer.end();
+
+        batch.getProjectionMatrix().setToOrtho2D( 0f, 0f, Gdx.graphics.getWidth(), Gdx.graphics.getHeight() );
+        batch.begin();
+        for ( int row = 0; row < cells.length; row++ )
+        {
+            float y = top - row * lineHeight;
+            font.setColor( row == 0 ? Color.LIGHT_GRAY : Color.YELLOW );
+            font.draw( batch, cells[ row ][ 0 ], MARGIN, y );
+            for ( int column = 1; column < cells[ row ].length; column++ )
+            {
+                float x = MARGIN + NAME_WIDTH + COLUMN_WIDTH * ( column - 1 );
+                font.draw( batch, cells[ row ][ column ], x, y, COLUMN_WIDTH, Align.right, false );
+            }
+        }
+        batch.end();
+    }
+
+    /**
+     * Rebuilds the text from the profiler's numbers.
+     *
+     * @param profiler
+     *          The profiler whose numbers are shown.
+     */
+    private void refresh( TickProfiler profiler )
+    {
+        TickProfiler.Phase[] phases = TickProfiler.Phase.values();
+        int rows = 1;
+        for ( TickProfiler.Phase phase : phases )
+        {
+            if ( profiler.getHistogram( phase ).getCount() > 0 ) rows++;
+        }
+
+        if ( cells.length != rows ) cells = new String[ rows ][];
+        cells[ 0 ] = HEADERS;
+
+        int row = 1;
+        for ( TickProfiler.Phase phase : phases )
+        {
+            LatencyHistogram histogram = profiler.getHistogram( phase );
+            if ( histogram.getCount() == 0 ) continue;
+
+            cells[ row++ ] = new String[] {
+                    phase.name().toLowerCase(),
+                    Long.toString( histogram.getCount() ),
+                    String.format( "%.1f", histogram.getPercentile( 50 ) / 1e3 ),
+                    String.format( "%.1f", histogram.getPercentile( 99 ) / 1e3 ),
+                    String.format( "%.1f", histogram.getMax() / 1e3 ),
+            };
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        batch.dispose();
+        font.dispose();
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import org.python.core.Py;
+import org.python.core.PyObject;
+import org.python.core.PySystemState;
+
+/**
+ * A controller backed by the user's python script, through the {@code _tick}
+ * method of the PyRobot wrapper.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class PythonController implements Controller
+{
+
+    //
+    // Fields
+    //
+
+    /** The PyRobot's _tick method. */
+    private final PyObject tick;
+
+    /** The system state of the interpreter the script lives in. */
+    private final PySystemState systemState;
+
+    /** The last array of inputs that was handed to us. */
+    private float[] inputs;
+
+    /** The last array of outputs that was handed to us. */
+    private float[] outputs;
+
+    /** inputs, as seen by the script. */
+    private PyObject pyInputs;
+
+    /** outputs, as seen by the script. */
+    private PyObject pyOutputs;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a new controller around the given PyRobot.
+     *
+     * @param pyRobot
+     *          The instance of the PyRobot class.
+     * @param systemState
+     *          The system state of the interpreter the PyRobot lives in.
+     */
+    PythonController( PyObject pyRobot, PySystemState systemState )
+    {
+        this.tick = pyRobot.__getattr__( "_tick" );
+        this.systemState = systemState;
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void loop( float[] inputs, float[] outputs )
+    {
+        // the arrays are wrapped, not copied, so this only has to happen when they change
+        if ( inputs != this.inputs )
+        {
+            this.inputs = inputs;
+            pyInputs = Py.java2py( inputs );
+        }
+        if ( outputs != this.outputs )
+        {
+            this.outputs = outputs;
+            pyOutputs = Py.java2py( outputs );
+        }
+
+        // this may be running on any thread, so make sure it's using the script's state
+        Py.setSystemState( systemState );
+        tick.__call__( pyInputs, pyOutputs );
+    }
+
+}
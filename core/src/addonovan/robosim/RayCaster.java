@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.RayCastCallback;
+import com.badlogic.gdx.physics.box2d.World;
+
+import java.util.List;
+
+/**
+ * Casts the rays for a simulation's range sensors. The static geometry is
+ * handled by marching the simulation's {@link DistanceField}, the other robots
+ * are tested against the boxes in a cache of their poses (refreshed once per
+ * tick), and Box2D is only asked about any other dynamic bodies, and only when
+ * there are some. If the static geometry is too big for a distance field,
+ * Box2D is asked about it as well.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class RayCaster
+{
+
+    //
+    // Constants
+    //
+
+    /** The half-width and half-height of a robot [m]. */
+    private static final float HALF_WIDTH = Robot.WIDTH_M / 2, HALF_HEIGHT = Robot.HEIGHT_M / 2;
+
+    /** The radius of the circle around a robot [m]. */
+    private static final float ROBOT_RADIUS = Math.magnitude( HALF_WIDTH, HALF_HEIGHT );
+
+    /** The number of floats in each robot's pose: x, y, cos and sin of the angle. */
+    private static final int POSE_SIZE = 4;
+
+    //
+    // Fields
+    //
+
+    /** The simulation the rays are cast in. */
+    private final SimulationInstance simulation;
+
+    /** The distance field for the static geometry, or null if it needs to be rebuilt. */
+    private DistanceField distanceField;
+
+    /** The number of robots in the pose cache. */
+    private int robotCount = 0;
+
+    /** The cached pose of each robot, one after the other. */
+    private float[] poses = new float[ 0 ];
+
+    /** The number of rays cast since the count was last taken. */
+    private long castCount = 0L;
+
+    /** The closest fraction of the current ray that hit a dynamic body. */
+    private float closest;
+
+    /** If Box2D is being asked about the static geometry as well, because there's no distance field for it. */
+    private boolean castStatic;
+
+    /** Records the closest dynamic body along the ray. */
+    private final RayCastCallback rayCastCallback = ( fixture, point, normal, fraction ) ->
+    {
+        // the robots are handled by the pose cache, the static geometry by the distance field
+        Body body = fixture.getBody();
+        if ( body.getUserData() instanceof Robot ) return -1f;
+        if ( !castStatic && body.getType() == BodyDef.BodyType.StaticBody ) return -1f;
+
+        closest = fraction;
+        return fraction;
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param simulation
+     *          The simulation the rays are cast in.
+     */
+    RayCaster( SimulationInstance simulation )
+    {
+        this.simulation = simulation;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Casts a ray from a robot's sensor.
+     *
+     * @param robot
+     *          The robot doing the sensing, which the ray passes through.
+     * @param x
+     *          The x position of the start of the ray [m].
+     * @param y
+     *          The y position of the start of the ray [m].
+     * @param dirX
+     *          The x component of the ray's (unit) direction.
+     * @param dirY
+     *          The y component of the ray's (unit) direction.
+     * @param maxDistance
+     *          The length of the ray [m].
+     * @return The distance to the closest thing along the ray [m], or -1 if
+     *          there was nothing.
+     */
+    float cast( Robot robot, float x, float y, float dirX, float dirY, float maxDistance )
+    {
+        castCount++;
+
+        DistanceField field = getDistanceField();
+        World world = simulation.getWorld();
+
+        boolean marched = field.isAvailable();
+        float hit = marched ? field.march( x, y, dirX, dirY, maxDistance ) : -1f;
+
+        // anything else has to be in front of the static hit to matter
+        float length = hit < 0f ? maxDistance : hit;
+        if ( length <= 0f ) return hit;
+
+        float robotHit = castRobots( robot.getIndex(), x, y, dirX, dirY, length );
+        if ( robotHit >= 0f )
+        {
+            hit = length = robotHit;
+        }
+
+        // only robots are moving, so there's nothing left to hit
+        if ( marched && world.getBodyCount() <= field.getStaticBodyCount() + robotCount ) return hit;
+
+        closest = -1f;
+        castStatic = !marched;
+        world.rayCast( rayCastCallback, x, y, x + dirX * length, y + dirY * length );
+
+        return closest < 0f ? hit : closest * length;
+    }
+
+    /**
+     * Casts a ray against the boxes of the robots in the pose cache.
+     *
+     * @param ignored
+     *          The index of the robot the ray starts from.
+     * @param x
+     *          The x position of the start of the ray [m].
+     * @param y
+     *          The y position of the start of the ray [m].
+     * @param dirX
+     *          The x component of the ray's (unit) direction.
+     * @param dirY
+     *          The y component of the ray's (unit) direction.
+     * @param length
+     *          The length of the ray [m].
+     * @return The distance to the closest robot along the ray [m], or -1 if
+     *          there wasn't one.
+     */
+    private float castRobots( int ignored, float x, float y, float dirX, float dirY, float length )
+    {
+        float closest = -1f;
+        float[] poses = this.poses;
+        for ( int i = 0; i < robotCount; i++ )
+        {
+            if ( i == ignored ) continue;
+
+            int offset = POSE_SIZE * i;
+            float offsetX = x - poses[ offset ];
+            float offsetY = y - poses[ offset + 1 ];
+
+            // skip anything whose bounding circle the ray can't reach
+            float along = -( offsetX * dirX + offsetY * dirY );
+            if ( along < -ROBOT_RADIUS || along > length + ROBOT_RADIUS ) continue;
+            float across = offsetX * dirY - offsetY * dirX;
+            if ( across < -ROBOT_RADIUS || across > ROBOT_RADIUS ) continue;
+
+            // into the robot's frame, where it's an axis-aligned box
+            float cos = poses[ offset + 2 ];
+            float sin = poses[ offset + 3 ];
+            float localX = offsetX * cos + offsetY * sin;
+            float localY = -offsetX * sin + offsetY * cos;
+            float localDirX = dirX * cos + dirY * sin;
+            float localDirY = -dirX * sin + dirY * cos;
+
+            float entry = Float.NEGATIVE_INFINITY;
+            float exit = Float.POSITIVE_INFINITY;
+
+            if ( localDirX == 0f )
+            {
+                if ( localX < -HALF_WIDTH || localX > HALF_WIDTH ) continue;
+            }
+            else
+            {
+                float near = ( -HALF_WIDTH - localX ) / localDirX;
+                float far = ( HALF_WIDTH - localX ) / localDirX;
+                entry = Math.max( entry, Math.min( near, far ) );
+                exit = Math.min( exit, Math.max( near, far ) );
+            }
+
+            if ( localDirY == 0f )
+            {
+                if ( localY < -HALF_HEIGHT || localY > HALF_HEIGHT ) continue;
+            }
+            else
+            {
+                float near = ( -HALF_HEIGHT - localY ) / localDirY;
+                float far = ( HALF_HEIGHT - localY ) / localDirY;
+                entry = Math.max( entry, Math.min( near, far ) );
+                exit = Math.min( exit, Math.max( near, far ) );
+            }
+
+            // rays starting inside a robot don't see it, the same as Box2D
+            if ( entry < 0f || entry > exit || entry > length ) continue;
+
+            if ( closest < 0f || entry < closest )
+            {
+                closest = entry;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Caches the poses of the robots, so the rays cast this tick don't have to
+     * ask Box2D where each of them is. This needs to be called whenever the
+     * robots have moved, before their sensors are updated.
+     *
+     * @param robots
+     *          The robots in the simulation.
+     */
+    void updateRobots( List< Robot > robots )
+    {
+        robotCount = robots.size();
+        if ( poses.length < POSE_SIZE * robotCount )
+        {
+            poses = new float[ POSE_SIZE * robotCount ];
+        }
+
+        for ( int i = 0; i < robotCount; i++ )
+        {
+            Body body = robots.get( i ).getBody();
+            Vector2 position = body.getPosition();
+            float angle = body.getAngle();
+
+            int offset = POSE_SIZE * i;
+            poses[ offset ] = position.x;
+            poses[ offset + 1 ] = position.y;
+            poses[ offset + 2 ] = Math.cos( angle );
+            poses[ offset + 3 ] = Math.sin( angle );
+        }
+    }
+
+    /**
+     * Throws away the distance field, so it's rebuilt the next time it's
+     * needed. This needs to be called whenever static geometry is added.
+     */
+    void invalidate()
+    {
+        distanceField = null;
+    }
+
+    //
+    // Getters/Setters
+    //
+
+    /**
+     * @return The number of rays cast since this was last called.
+     */
+    long takeCastCount()
+    {
+        long count = castCount;
+        castCount = 0L;
+        return count;
+    }
+
+    /**
+     * @param distanceField
+     *          The distance field for the static geometry currently in the world.
+     */
+    void setDistanceField( DistanceField distanceField )
+    {
+        this.distanceField = distanceField;
+    }
+
+    /**
+     * @return The distance field for the static geometry currently in the world.
+     */
+    DistanceField getDistanceField()
+    {
+        if ( distanceField == null )
+        {
+            distanceField = new DistanceField( simulation.getWorld() );
+        }
+        return distanceField;
+    }
+
+}
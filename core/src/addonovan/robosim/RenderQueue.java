@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Collects the drawing commands for a frame and groups them by the type of
+ * shape they draw, so the shape renderer only has to be started and flushed
+ * once per shape type each frame, instead of once per entity.
+ *
+ * Static meshes are drawn before any of the shapes, as they're the
+ * background everything else moves over.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class RenderQueue
+{
+
+    //
+    // Constants
+    //
+
+    /** The order the shape types are drawn in, so outlines end up on top of filled shapes. */
+    private static final ShapeType[] DRAW_ORDER = { ShapeType.Filled, ShapeType.Line, ShapeType.Point };
+
+    //
+    // Fields
+    //
+
+    /** The static meshes waiting to be drawn. */
+    private final List< StaticMesh > meshes = new ArrayList<>();
+
+    /** The commands waiting to be drawn, by the type of shape they draw. */
+    private final Map< ShapeType, List< Consumer< ShapeRenderer > > > commands = new EnumMap<>( ShapeType.class );
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a new, empty render queue.
+     */
+    RenderQueue()
+    {
+        for ( ShapeType shapeType : DRAW_ORDER )
+        {
+            commands.put( shapeType, new ArrayList<>() );
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Queues a rendering call to be run when the queue is next flushed.
+     *
+     * @param shapeType
+     *          The type of shape to render.
+     * @param lambda
+     *          The rendering commands.
+     */
+    void submit( ShapeType shapeType, Consumer< ShapeRenderer > lambda )
+    {
+        commands.get( shapeType ).add( lambda );
+    }
+
+    /**
+     * Queues a static mesh to be drawn when the queue is next flushed.
+     *
+     * @param mesh
+     *          The mesh to draw.
+     */
+    void submit( StaticMesh mesh )
+    {
+        meshes.add( mesh );
+    }
+
+    /**
+     * Draws everything that's been queued, with one batch per shape type,
+     * then empties the queue. Commands of the same type are drawn in the
+     * order they were submitted.
+     *
+     * @param shapeRenderer
+     *          The renderer to draw with.
+     */
+    void flush( ShapeRenderer shapeRenderer )
+    {
+        for ( int i = 0; i < meshes.size(); i++ )
+        {
+            meshes.get( i ).draw( shapeRenderer.getProjectionMatrix() );
+        }
+        meshes.clear();
+
+        for ( ShapeType shapeType : DRAW_ORDER )
+        {
+            List< Consumer< ShapeRenderer > > batch = commands.get( shapeType );
+            if ( batch.isEmpty() ) continue;
+
+            shapeRenderer.begin( shapeType );
+            for ( int i = 0; i < batch.size(); i++ )
+            {
+                batch.get( i ).accept( shapeRenderer );
+            }
+            shapeRenderer.end();
+
+            batch.clear();
+        }
+    }
+
+}
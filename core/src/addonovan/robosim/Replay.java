@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A run read back from a {@link TelemetryRecorder} file, which can be played
+ * back by a {@link SimulationInstance} in place of a controller.
+ *
+ * The motor powers the controller sent back and the debug keys that were held
+ * down are fed into the robot on the same ticks as before, without running
+ * the script at all. The robot has the same motors in the same places, so
+ * given the same arena, the physics play out exactly the same and the robot
+ * follows the recorded trajectory bit-for-bit (which matches() checks).
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class Replay
+{
+
+    //
+    // Fields
+    //
+
+    /** The x and y position of each motor on the robot [m]. */
+    private final float[] motorPositions;
+
+    /** The number of ticks recorded. */
+    private final int ticks;
+
+    /** The length of each tick [s]. */
+    private final float[] deltaTimes;
+
+    /** The debug keys held down on each tick. */
+    private final int[] keys;
+
+    /** The motor powers sent back on each tick, one tick after the other. */
+    private final float[] motorPowers;
+
+    /** The x, y and angle of the robot at the end of each tick, one tick after the other. */
+    private final float[] poses;
+
+    //
+    // Constructors
+    //
+
+    private Replay( float[] motorPositions, int ticks, float[] deltaTimes, int[] keys, float[] motorPowers, float[] poses )
+    {
+        this.motorPositions = motorPositions;
+        this.ticks = ticks;
+        this.deltaTimes = deltaTimes;
+        this.keys = keys;
+        this.motorPowers = motorPowers;
+        this.poses = poses;
+    }
+
+    /**
+     * Loads the first recording in a telemetry file.
+     *
+     * @param file
+     *          The telemetry file.
+     * @return The recorded run.
+     *
+     * @throws IOException
+     *          If the file couldn't be read.
+     */
+    public static Replay load( File file ) throws IOException
+    {
+        return load( file, 0 );
+    }
+
+    /**
+     * Loads a recording from a telemetry file.
+     *
+     * @param file
+     *          The telemetry file.
+     * @param run
+     *          The index of the recording in the file (one is made for each
+     *          initialize() of the simulation).
+     * @return The recorded run.
+     *
+     * @throws IOException
+     *          If the file couldn't be read, or doesn't have that many recordings.
+     */
+    public static Replay load( File file, int run ) throws IOException
+    {
+        try ( TelemetryReader reader = new TelemetryReader( file ) )
+        {
+            float[] motorPositions = null;
+            int motors = 0;
+            int ticks = 0;
+            float[] deltaTimes = new float[ 1024 ];
+            int[] keys = new int[ 1024 ];
+            float[] motorPowers = new float[ 0 ];
+            float[] poses = new float[ 3 * 1024 ];
+
+            while ( reader.next() )
+            {
+                if ( reader.getRun() < run ) continue;
+                if ( reader.getRun() > run ) break;
+
+                if ( motorPositions == null )
+                {
+                    motorPositions = reader.getMotorPositions().clone();
+                    motors = motorPositions.length / 2;
+                    motorPowers = new float[ motors * 1024 ];
+                }
+
+                if ( ticks == deltaTimes.length )
+                {
+                    deltaTimes = Arrays.copyOf( deltaTimes, ticks * 2 );
+                    keys = Arrays.copyOf( keys, ticks * 2 );
+                    motorPowers = Arrays.copyOf( motorPowers, motors * ticks * 2 );
+                    poses = Arrays.copyOf( poses, 3 * ticks * 2 );
+                }
+
+                deltaTimes[ ticks ] = reader.getDeltaTime();
+                keys[ ticks ] = reader.getKeys();
+                System.arraycopy( reader.getMotorPowers(), 0, motorPowers, motors * ticks, motors );
+                poses[ 3 * ticks ] = reader.getX();
+                poses[ 3 * ticks + 1 ] = reader.getY();
+                poses[ 3 * ticks + 2 ] = reader.getAngle();
+                ticks++;
+            }
+
+            if ( motorPositions == null )
+            {
+                throw new IOException( "No recording " + run + " with any ticks in " + file );
+            }
+
+            return new Replay( motorPositions, ticks, deltaTimes, keys, motorPowers, poses );
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Puts the recorded motors on the robot, and creates the controller which
+     * plays back their powers.
+     *
+     * @param robot
+     *          The robot to play the run back on.
+     * @return The controller playing back the run.
+     */
+    Controller newController( Robot robot )
+    {
+        Vector2 position = new Vector2();
+        for ( int i = 0; i < motorPositions.length; i += 2 )
+        {
+            robot.addMotor( new Motor( position.set( motorPositions[ i ], motorPositions[ i + 1 ] ) ) );
+        }
+
+        // follow the simulation's tick count, so the replay stays in step when
+        // the simulation is rewound to a snapshot
+        SimulationInstance simulation = robot.getSimulation();
+        return new Controller()
+        {
+            @Override
+            public void loop( float[] inputs, float[] outputs )
+            {
+                int tick = simulation.getTicks();
+                if ( tick < ticks )
+                {
+                    System.arraycopy( motorPowers, outputs.length * tick, outputs, 0, outputs.length );
+                }
+                else
+                {
+                    Arrays.fill( outputs, 0f );
+                }
+            }
+        };
+    }
+
+    /**
+     * @param tick
+     *          The index of the tick.
+     * @param robot
+     *          The robot the run is being played back on.
+     * @return If the robot is exactly where it was at the end of the tick.
+     */
+    public boolean matches( int tick, Robot robot )
+    {
+        return Float.floatToRawIntBits( robot.getX() ) == Float.floatToRawIntBits( poses[ 3 * tick ] )
+            && Float.floatToRawIntBits( robot.getY() ) == Float.floatToRawIntBits( poses[ 3 * tick + 1 ] )
+            && Float.floatToRawIntBits( robot.getAngle() ) == Float.floatToRawIntBits( poses[ 3 * tick + 2 ] );
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The number of ticks recorded.
+     */
+    public int getTickCount()
+    {
+        return ticks;
+    }
+
+    /**
+     * @param tick
+     *          The index of the tick.
+     * @return The length of the tick [s].
+     */
+    public float getDeltaTime( int tick )
+    {
+        return deltaTimes[ tick ];
+    }
+
+    /**
+     * @param tick
+     *          The index of the tick.
+     * @return The debug keys held down on the tick, or none once past the end.
+     */
+    int getKeys( int tick )
+    {
+        return tick < ticks ? keys[ tick ] : 0;
+    }
+
+}
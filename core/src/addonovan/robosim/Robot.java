@@ -30,7 +30,10 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.joints.FrictionJointDef;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * A definition for the robot and its hardware. This is
@@ -63,26 +66,71 @@ public class Robot extends Entity
     // Fields
     //
 
+    /** The simulation this robot is in. */
+    private final SimulationInstance simulation;
+
+    /** The index of this robot in its simulation. */
+    private final int index;
+
     /** The body this uses in the physics simulations. */
     private final Body body;
 
+    /** Sums up the forces of the motors into one force and torque each tick. */
+    private final Drivetrain drivetrain;
+
     /** The motors on this robot. */
     private final List< Motor > motors = new ArrayList<>();
 
     /** The sensors in this robot. */
     private final List< Sensor > sensors = new ArrayList<>();
 
+    /** A read-only view of the motors. */
+    private final List< Motor > motorsView = Collections.unmodifiableList( motors );
+
+    /** A read-only view of the sensors. */
+    private final List< Sensor > sensorsView = Collections.unmodifiableList( sensors );
+
+    /** The hardware frame of sensor readings handed to the controller, in the order the sensors were added. */
+    private float[] inputs = new float[ 0 ];
+
+    /** The hardware frame of motor powers sent back by the controller, one per motor. */
+    private float[] outputs = new float[ 0 ];
+
+    /** The number of times this robot has run into something. */
+    private int collisions = 0;
+
+    /** The time this robot first ran into something [s], or -1 if it hasn't. */
+    private double firstCollisionTime = -1.0;
+
+    /** Scratch space for the debug movement force [N]. */
+    private final Vector2 moveForce = new Vector2();
+
+    /** The drawing commands for this robot, kept so rendering doesn't allocate. */
+    private final Consumer< ShapeRenderer > drawCommand = this::draw;
+
     //
     // Constructors
     //
 
     /**
      * Constructs a new robot out of nothing.
+     *
+     * @param simulation
+     *          The simulation the robot is in.
+     * @param index
+     *          The index of the robot in the simulation.
+     * @param x
+     *          The x position of the robot's center [m].
+     * @param y
+     *          The y position of the robot's center [m].
      */
-    Robot()
+    Robot( SimulationInstance simulation, int index, float x, float y )
     {
+        this.simulation = simulation;
+        this.index = index;
         body = makeBody();
-        body.setTransform( Units.inToM( 11 ) + Units.pxToM( WIDTH / 2 ), Units.inToM( 11 ) + Units.pxToM( HEIGHT / 2 ), 0f );
+        body.setTransform( x, y, 0f );
+        drivetrain = new Drivetrain( body );
     }
 
     //
@@ -92,33 +140,63 @@ public class Robot extends Entity
     @Override
     public void update()
     {
-        motors.forEach( HardwareDevice::update );
-        sensors.forEach( Sensor::update );
+        updateMotors();
+
+        // then take the readings the controller will be given this tick
+        int offset = 0;
+        for ( int i = 0; i < sensors.size(); i++ )
+        {
+            Sensor sensor = sensors.get( i );
+            sensor.update();
+            sensor.read( inputs, offset );
+            offset += sensor.getFrameSize();
+        }
+    }
+
+    /**
+     * Applies the powers the controller sent back last tick, as a single
+     * force and torque.
+     */
+    void updateMotors()
+    {
+        if ( motors.isEmpty() ) return;
+
+        drivetrain.begin();
+        for ( int i = 0; i < motors.size(); i++ )
+        {
+            Motor motor = motors.get( i );
+            motor.power = outputs[ i ];
+            motor.update();
+        }
+        drivetrain.apply();
     }
 
     @Override
     public void render()
     {
-        Simulation.renderShape( ShapeRenderer.ShapeType.Line, sr ->
-        {
-            sr.setColor( Color.WHITE );
+        Simulation.renderShape( ShapeRenderer.ShapeType.Line, drawCommand );
 
-            float bodyX = Units.mToPx( getX() );
-            float bodyY = Units.mToPx( getY() );
+        motors.forEach( HardwareDevice::render );
+        sensors.forEach( Sensor::render );
+    }
 
-            float x = bodyX - ( WIDTH / 2 );
-            float y = bodyY - ( WIDTH / 2 );
+    /**
+     * Draws the outline of the robot.
+     *
+     * @param sr
+     *          The renderer to draw with.
+     */
+    private void draw( ShapeRenderer sr )
+    {
+        sr.setColor( Color.WHITE );
 
-            sr.rect( x, y, WIDTH / 2, HEIGHT / 2, WIDTH, HEIGHT, 1, 1, Math.toDegrees( body.getAngle() ) );
-        } );
+        float bodyX = Units.mToPx( getX() );
+        float bodyY = Units.mToPx( getY() );
 
-        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, sr ->
-        {
-            sr.setColor( Color.GREEN );
-        } );
+        float x = bodyX - ( WIDTH / 2 );
+        float y = bodyY - ( WIDTH / 2 );
 
-        motors.forEach( HardwareDevice::render );
-        sensors.forEach( Sensor::render );
+        sr.rect( x, y, WIDTH / 2, HEIGHT / 2, WIDTH, HEIGHT, 1, 1, Math.toDegrees( body.getAngle() ) );
     }
 
     //
@@ -133,7 +211,7 @@ public class Robot extends Entity
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.DynamicBody;
 
-        Body body = Simulation.getWorld().createBody( bodyDef );
+        Body body = simulation.getWorld().createBody( bodyDef );
 
         PolygonShape shape = new PolygonShape();
         shape.setAsBox( Units.pxToM( WIDTH / 2 ), Units.pxToM( HEIGHT / 2 ) );
@@ -144,6 +222,7 @@ public class Robot extends Entity
         fixtureDef.restitution = 0.1f;
 
         body.createFixture( fixtureDef );
+        body.setUserData( this );
         body.setLinearDamping( 21f );
         body.setAngularDamping( 21f );
         shape.dispose();
@@ -157,6 +236,30 @@ public class Robot extends Entity
         return body;
     }
 
+    /**
+     * @return The drivetrain the motors add their forces to.
+     */
+    Drivetrain getDrivetrain()
+    {
+        return drivetrain;
+    }
+
+    /**
+     * @return The simulation this robot is in.
+     */
+    SimulationInstance getSimulation()
+    {
+        return simulation;
+    }
+
+    /**
+     * @return The index of this robot in its simulation, 0 being the first.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
     //
     // Sensors/Motors
     //
@@ -170,7 +273,11 @@ public class Robot extends Entity
      */
     public Motor addMotor( Motor motor )
     {
+        motor.attach( this );
         motors.add( motor );
+
+        outputs = Arrays.copyOf( outputs, outputs.length + 1 );
+        outputs[ outputs.length - 1 ] = motor.power;
         return motor;
     }
 
@@ -183,10 +290,146 @@ public class Robot extends Entity
      */
     public Sensor addSensor( Sensor sensor )
     {
+        sensor.attach( this );
         sensors.add( sensor );
+
+        inputs = Arrays.copyOf( inputs, inputs.length + sensor.getFrameSize() );
         return sensor;
     }
 
+    /**
+     * @return The motors on this robot, in the order they were added.
+     */
+    public List< Motor > getMotors()
+    {
+        return motorsView;
+    }
+
+    /**
+     * @return The sensors on this robot, in the order they were added.
+     */
+    public List< Sensor > getSensors()
+    {
+        return sensorsView;
+    }
+
+    /**
+     * @return The sensor readings handed to the controller each tick.
+     */
+    float[] getInputs()
+    {
+        return inputs;
+    }
+
+    /**
+     * @return The motor powers sent back by the controller each tick.
+     */
+    float[] getOutputs()
+    {
+        return outputs;
+    }
+
+    //
+    // Snapshots
+    //
+
+    /**
+     * Copies the state of this robot into the snapshot.
+     *
+     * @param snapshot
+     *          The snapshot to capture into, with room for this robot's hardware.
+     */
+    void capture( Snapshot snapshot )
+    {
+        float[] states = snapshot.states;
+        int offset = Snapshot.STATE_SIZE * index;
+
+        Vector2 position = body.getPosition();
+        states[ offset ] = position.x;
+        states[ offset + 1 ] = position.y;
+        states[ offset + 2 ] = body.getAngle();
+
+        Vector2 velocity = body.getLinearVelocity();
+        states[ offset + 3 ] = velocity.x;
+        states[ offset + 4 ] = velocity.y;
+        states[ offset + 5 ] = body.getAngularVelocity();
+
+        System.arraycopy( outputs, 0, snapshot.outputs[ index ], 0, outputs.length );
+        System.arraycopy( inputs, 0, snapshot.inputs[ index ], 0, inputs.length );
+
+        snapshot.collisions[ index ] = collisions;
+        snapshot.firstCollisionTimes[ index ] = firstCollisionTime;
+    }
+
+    /**
+     * Puts this robot back into the state of the snapshot. The sensors aren't
+     * updated, as they may see the other robots, which might not have been
+     * restored yet.
+     *
+     * @param snapshot
+     *          The snapshot to restore.
+     * @throws IllegalArgumentException
+     *          If the snapshot was taken of a robot with different hardware.
+     */
+    void restore( Snapshot snapshot )
+    {
+        if ( !snapshot.fits( this ) )
+        {
+            throw new IllegalArgumentException( "The snapshot was taken of a robot with different hardware" );
+        }
+
+        float[] states = snapshot.states;
+        int offset = Snapshot.STATE_SIZE * index;
+        body.setTransform( states[ offset ], states[ offset + 1 ], states[ offset + 2 ] );
+        body.setLinearVelocity( states[ offset + 3 ], states[ offset + 4 ] );
+        body.setAngularVelocity( states[ offset + 5 ] );
+        body.setAwake( true );
+
+        System.arraycopy( snapshot.outputs[ index ], 0, outputs, 0, outputs.length );
+        for ( int i = 0; i < motors.size(); i++ )
+        {
+            motors.get( i ).power = outputs[ i ];
+        }
+
+        System.arraycopy( snapshot.inputs[ index ], 0, inputs, 0, inputs.length );
+
+        collisions = snapshot.collisions[ index ];
+        firstCollisionTime = snapshot.firstCollisionTimes[ index ];
+    }
+
+    //
+    // Collisions
+    //
+
+    /**
+     * Called when this robot starts touching something.
+     */
+    void collide()
+    {
+        if ( collisions++ == 0 )
+        {
+            firstCollisionTime = simulation.getRuntime();
+        }
+    }
+
+    /**
+     * @return The number of times this robot has run into something (a wall
+     *          or another robot).
+     */
+    public int getCollisions()
+    {
+        return collisions;
+    }
+
+    /**
+     * @return The time this robot first ran into something [s], or -1 if it
+     *          hasn't yet.
+     */
+    public double getFirstCollisionTime()
+    {
+        return firstCollisionTime;
+    }
+
     //
     // Debug Movement
     //
@@ -204,7 +447,7 @@ public class Robot extends Entity
             angle += Math.PI;
         }
 
-        body.applyForceToCenter( Math.vectorFrom( 200f * power, angle ), true );
+        body.applyForceToCenter( Math.vectorFrom( 200f * power, angle, moveForce ), true );
     }
 
     void rotate( float power )
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+/**
+ * A robot controller written in Java, as an alternative to a python script.
+ *
+ * The controller attaches whatever motors and sensors it needs in init(),
+ * then reads the sensors and sets the motors' powers once per tick in loop().
+ * Both are given the robot directly, so there's no interpreter in the way.
+ *
+ * Implementations need a public no-argument constructor to be loaded by name.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public interface RobotController
+{
+
+    /**
+     * Sets up the robot's hardware. This is called every time the simulation
+     * is initialized, each time with a brand new robot, so any state from the
+     * previous run should be reset here as well.
+     *
+     * @param robot
+     *          The robot to control.
+     */
+    void init( Robot robot );
+
+    /**
+     * Runs the controller for a single tick.
+     *
+     * @param robot
+     *          The robot being controlled.
+     */
+    void loop( Robot robot );
+
+}
@@ -44,6 +44,12 @@ public class RobotSimulator extends ApplicationAdapter
     /** The camera used for drawing. */
     private OrthographicCamera camera;
 
+    /** Shows how long each phase of the ticks takes, toggled with F3. */
+    private ProfilerOverlay profilerOverlay;
+
+    /** If the profiler overlay is being shown. */
+    private boolean showProfiler = false;
+
     @Override
     public void create()
     {
@@ -64,6 +70,7 @@ public class RobotSimulator extends ApplicationAdapter
         Gdx.app.log( "RobotSimulator", "Simulation initialized" );
 
         debugRenderer = new Box2DDebugRenderer();
+        profilerOverlay = new ProfilerOverlay();
 
         Gdx.gl.glEnable( GL11.GL_BLEND );
         Gdx.gl.glBlendFunc( GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA );
@@ -88,6 +95,26 @@ public class RobotSimulator extends ApplicationAdapter
             Simulation.render();
         }
 
+        if ( Gdx.input.isKeyJustPressed( Input.Keys.F3 ) )
+        {
+            showProfiler = !showProfiler;
+
+            // start counting from when the overlay is opened
+            if ( showProfiler ) Simulation.getProfiler().reset();
+        }
+
+        if ( showProfiler )
+        {
+            profilerOverlay.render( Simulation.getProfiler(), Simulation.shapeRenderer );
+        }
+
         Simulation.update();
     }
+
+    @Override
+    public void dispose()
+    {
+        profilerOverlay.dispose();
+        debugRenderer.dispose();
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.Gdx;
+import org.python.Version;
+import org.python.core.BytecodeLoader;
+import org.python.core.PyCode;
+import org.python.core.imp;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of compiled python scripts, keyed by a hash of their source. Running
+ * the same script again (e.g. resetting or restarting the simulation) reuses
+ * the compiled code instead of parsing and compiling the source again.
+ *
+ * The compiled bytecode may also be kept on disk, so it survives between runs
+ * of the program. This is enabled by setting the {@code robosim.scriptCache}
+ * system property to a directory, or by calling setDirectory().
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class ScriptCache
+{
+
+    //
+    // Constants
+    //
+
+    /** The filename given to the compiled scripts (shows up in tracebacks). */
+    private static final String FILENAME = "<script>";
+
+    /** The extension of the compiled scripts kept on disk. */
+    private static final String EXTENSION = ".class";
+
+    //
+    // Fields
+    //
+
+    /** The compiled scripts, by the hash of their source. */
+    private static final Map< String, PyCode > codes = new ConcurrentHashMap<>();
+
+    /** The directory compiled scripts are kept in, or null if they're only kept in memory. */
+    private static volatile File directory = directoryFrom( System.getProperty( "robosim.scriptCache" ) );
+
+    //
+    // Actions
+    //
+
+    /**
+     * Compiles the given source, or returns the previously compiled code if
+     * this exact source has been compiled before.
+     *
+     * @param source
+     *          The python source code.
+     * @return The compiled code.
+     */
+    public static PyCode compile( String source )
+    {
+        return codes.computeIfAbsent( hash( source ), hash -> load( hash, source ) );
+    }
+
+    /**
+     * Loads the compiled code from the disk if it's there, otherwise
+     * compiles it (and saves it to the disk, if enabled).
+     *
+     * @param hash
+     *          The hash of the source.
+     * @param source
+     *          The python source code.
+     * @return The compiled code.
+     */
+    private static PyCode load( String hash, String source )
+    {
+        String name = "script_" + hash;
+        File directory = ScriptCache.directory;
+        File file = directory == null ? null : new File( directory, hash + EXTENSION );
+
+        if ( file != null && file.isFile() )
+        {
+            try
+            {
+                return BytecodeLoader.makeCode( name + "$py", Files.readAllBytes( file.toPath() ), FILENAME );
+            }
+            catch ( Exception e )
+            {
+                // it's only a cache, so we can just compile it again
+                Gdx.app.error( "ScriptCache", "Couldn't load cached script " + file + ", recompiling", e );
+            }
+        }
+
+        byte[] bytes = imp.compileSource( name, new ByteArrayInputStream( source.getBytes( StandardCharsets.UTF_8 ) ), FILENAME );
+
+        if ( file != null )
+        {
+            save( file, bytes );
+        }
+
+        return BytecodeLoader.makeCode( name + "$py", bytes, FILENAME );
+    }
+
+    /**
+     * Saves the compiled script to the disk. The file is written somewhere
+     * else first then moved into place, so nobody can read half of it.
+     *
+     * @param file
+     *          The file to save the script in.
+     * @param bytes
+     *          The compiled script.
+     */
+    private static void save( File file, byte[] bytes )
+    {
+        try
+        {
+            Files.createDirectories( file.getParentFile().toPath() );
+
+            File temp = File.createTempFile( file.getName(), ".tmp", file.getParentFile() );
+            Files.write( temp.toPath(), bytes );
+            Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( IOException e )
+        {
+            Gdx.app.error( "ScriptCache", "Couldn't save compiled script to " + file, e );
+        }
+    }
+
+    /**
+     * Hashes the source along with the python version, so bytecode compiled
+     * by another version of jython will never be picked up from the disk.
+     *
+     * @param source
+     *          The python source code.
+     * @return The hex-encoded SHA-256 hash.
+     */
+    private static String hash( String source )
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-256" );
+            digest.update( Version.PY_VERSION.getBytes( StandardCharsets.UTF_8 ) );
+            digest.update( ( byte ) 0 );
+            byte[] hash = digest.digest( source.getBytes( StandardCharsets.UTF_8 ) );
+
+            StringBuilder sb = new StringBuilder( hash.length * 2 );
+            for ( byte b : hash )
+            {
+                sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+                sb.append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            return sb.toString();
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            // every java platform is required to support SHA-256
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Forgets every script compiled so far (but leaves them on the disk).
+     */
+    public static void clear()
+    {
+        codes.clear();
+    }
+
+    //
+    // Getters/Setters
+    //
+
+    /**
+     * @param directory
+     *          The directory to keep compiled scripts in, or null to only keep
+     *          them in memory.
+     */
+    public static void setDirectory( File directory )
+    {
+        ScriptCache.directory = directory;
+    }
+
+    /**
+     * @param path
+     *          The path to the directory, may be null.
+     * @return The directory at the path, or null if there was no path.
+     */
+    private static File directoryFrom( String path )
+    {
+        return path == null || path.isEmpty() ? null : new File( path );
+    }
+
+}
@@ -29,4 +29,19 @@ package addonovan.robosim;
 public interface Sensor extends HardwareDevice
 {
 
+    /**
+     * @return The number of values this sensor reports to the controller each tick.
+     */
+    int getFrameSize();
+
+    /**
+     * Writes the sensor's current reading(s) into the robot's hardware frame.
+     *
+     * @param frame
+     *          The values handed to the controller this tick.
+     * @param offset
+     *          The index of this sensor's first value in the frame.
+     */
+    void read( float[] frame, int offset );
+
 }
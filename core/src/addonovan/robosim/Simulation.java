@@ -20,18 +20,15 @@
 package addonovan.robosim;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.World;
-import com.sun.istack.internal.NotNull;
-import org.python.core.PyObject;
-import org.python.util.PythonInterpreter;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Consumer;
 
 /**
+ * The simulation shown in the desktop application. This drives a single
+ * {@link SimulationInstance} from the render loop and publishes its state
+ * to the user interface.
+ *
  * @author addonovan
  * @since 11/11/16
  */
@@ -44,42 +41,54 @@ public final class Simulation
 
     public static final String EMPTY_PROGRAM = "def loop(self):\n    pass";
 
-    /** The layout for the program. */
-    private static final String PROGRAM_LAYOUT = Gdx.files.internal( "PyRobot.py" ).readString();
+    /** The most time the script may take each tick before the robot carries on without it [ns]. */
+    private static final long CONTROLLER_BUDGET = 10_000_000L;
+
+    /** The number of ticks between the snapshots which can be rewound to. */
+    private static final int SNAPSHOT_INTERVAL = 30;
+
+    /** The most snapshots to keep (ten minutes' worth). */
+    private static final int SNAPSHOT_CAPACITY = 1200;
 
     //
     // Fields
     //
 
-    /** The robot being simulated. */
-    @NotNull public static Robot robot;
-
-    private static final List< Renderable > renderables = new ArrayList<>();
-
-    /** The python interpreter in case access is needed. */
-    @NotNull private static PythonInterpreter interpreter;
-
-    /** The update loop for the robot. */
-    @NotNull private static PyObject loop;
-
-    /** The world being used for simulations. */
-    @NotNull private static World world;
+    /** The simulation being displayed. */
+    private static final SimulationInstance instance = new SimulationInstance();
 
     /** If the simulation is currently running or not (may be paused). */
-    public static Observable< Boolean > running = new Observable<>( false );
+    public static final BooleanObservable running = new BooleanObservable( false );
 
     /** If the simulation is currently paused. */
-    public static Observable< Boolean > paused = new Observable<>( false );
+    public static final BooleanObservable paused = new BooleanObservable( false );
 
     /** The time the simulation has been running. (Measured in seconds). */
-    public static Observable< Double > runtime = new Observable<>( 0.0 );
+    public static final DoubleObservable runtime = new DoubleObservable( 0.0 );
 
     /** The speed at which the simulation runs. */
-    public static Observable< Double > runSpeed = new Observable<>( 1.0 );
+    public static final DoubleObservable runSpeed = new DoubleObservable( 1.0 );
 
     /** The renderer used to draw new shapes and whatnot. */
     static ShapeRenderer shapeRenderer;
 
+    /** The shapes waiting to be drawn this frame. */
+    private static final RenderQueue renderQueue = new RenderQueue();
+
+    /** Times each phase of the ticks and frames, for the profiler overlay. */
+    private static final TickProfiler profiler = new TickProfiler();
+
+    static
+    {
+        instance.setKeyboardEnabled( true );
+        instance.setProfiler( profiler );
+
+        // keep a slow script from freezing the canvas (and the rest of the UI with it)
+        instance.setControllerThread( CONTROLLER_BUDGET, ControllerThread.LatePolicy.HOLD );
+
+        instance.setSnapshots( SNAPSHOT_INTERVAL, SNAPSHOT_CAPACITY );
+    }
+
     //
     // Actions
     //
@@ -92,13 +101,29 @@ public final class Simulation
      */
     public static void newInterpreter( String source )
     {
-        PythonInterpreter interpreter = new PythonInterpreter();
+        instance.newInterpreter( source );
+    }
 
-        String modifiedSource = PROGRAM_LAYOUT + "\n";
-        modifiedSource += "    " + source.replaceAll( "\n", "\n    " );
-        interpreter.exec( modifiedSource );
+    /**
+     * Drives the robot with the given java controller instead of a script.
+     *
+     * @param controller
+     *          The controller to drive the robot with.
+     */
+    public static void newController( RobotController controller )
+    {
+        instance.newController( controller );
+    }
 
-        Simulation.interpreter = interpreter;
+    /**
+     * Uses the given arena from the next initialize() on.
+     *
+     * @param arena
+     *          The layout of the walls.
+     */
+    public static void setArena( Arena arena )
+    {
+        instance.setArena( arena );
     }
 
     /**
@@ -107,21 +132,7 @@ public final class Simulation
      */
     public static void initialize()
     {
-        if ( world != null )
-        {
-            world.dispose();
-        }
-        world = new World( new Vector2( 0f, 0f ), false );
-        robot = new Robot();
-        interpreter.set( "robot", robot );
-        interpreter.exec( "pyRobot = PyRobot()" );
-        loop = interpreter.get( "pyRobot" ).__getattr__( "loop" );
-
-        renderables.clear();
-        renderables.add( new Wall(   2f, 144f,   8f,   8f ) );
-        renderables.add( new Wall( 144f,   2f,   8f,   8f ) );
-        renderables.add( new Wall(   2f, 146f, 152f,   8f ) );
-        renderables.add( new Wall( 146f,   2f,   8f, 152f ) );
+        instance.initialize();
 
         runtime.setValue( 0.0 );
         running.setValue( false );
@@ -130,13 +141,31 @@ public final class Simulation
         Gdx.app.log( "Simulation", "Initialized" );
     }
 
+    /**
+     * Rewinds the simulation to one of its snapshots. The simulation is
+     * rewound on the render thread, before the next frame is drawn.
+     *
+     * @param index
+     *          The index of the snapshot in the history, 0 being the oldest.
+     */
+    public static void rewind( int index )
+    {
+        Gdx.app.postRunnable( () ->
+        {
+            instance.restore( getHistory().get( index ) );
+            runtime.setValue( instance.getRuntime() );
+        } );
+    }
+
     /**
      * Renders the simulation onto the screen.
      */
     static void render()
     {
-        renderables.forEach( Renderable::render );
-        robot.render();
+        long start = System.nanoTime();
+        instance.render();
+        renderQueue.flush( shapeRenderer );
+        profiler.lap( TickProfiler.Phase.RENDER, start );
     }
 
     /**
@@ -147,43 +176,15 @@ public final class Simulation
         // only update if we're running
         if ( running.getValue() && !paused.getValue() )
         {
-            float deltaTime = 1 / 60f * runSpeed.getValue().floatValue();
-
-            runtime.setValue( runtime.getValue() + deltaTime );
-            robot.update();
-            renderables.forEach( Renderable::update );
-            try
-            {
-                loop.__call__();
-            }
-            catch ( Exception e )
-            {
-                e.printStackTrace();
-            }
-
-            if ( Gdx.input.isKeyPressed( Input.Keys.W ) )
-            {
-                robot.move( 1f );
-            }
-            if ( Gdx.input.isKeyPressed( Input.Keys.S ) )
-            {
-                robot.move( -1f );
-            }
-            if ( Gdx.input.isKeyPressed( Input.Keys.A ) )
-            {
-                robot.rotate( 0.25f );
-            }
-            if ( Gdx.input.isKeyPressed( Input.Keys.D ) )
-            {
-                robot.rotate( -0.25f );
-            }
-
-            world.step( deltaTime, 6, 2 );
+            instance.advance( deltaTime() );
+            runtime.setValue( instance.getRuntime() );
         }
     }
 
     /**
-     * Performs a rendering call in the given context.
+     * Queues a rendering call in the given context. The call is made when
+     * the frame is drawn, batched together with every other call for the
+     * same shape type.
      *
      * @param shapeType
      *          The type of shape to render.
@@ -192,9 +193,19 @@ public final class Simulation
      */
     static void renderShape( ShapeRenderer.ShapeType shapeType, Consumer< ShapeRenderer > lambda )
     {
-        shapeRenderer.begin( shapeType );
-        lambda.accept( shapeRenderer );
-        shapeRenderer.end();
+        renderQueue.submit( shapeType, lambda );
+    }
+
+    /**
+     * Queues a static mesh to be drawn when the frame is drawn, underneath
+     * all of the shapes.
+     *
+     * @param mesh
+     *          The mesh to draw.
+     */
+    static void renderMesh( StaticMesh mesh )
+    {
+        renderQueue.submit( mesh );
     }
 
     /**
@@ -225,12 +236,36 @@ public final class Simulation
         running.setValue( false );
     }
 
+    /**
+     * @return The snapshots taken of the simulation which can be rewound to.
+     */
+    public static SnapshotHistory getHistory()
+    {
+        return instance.getSnapshotHistory();
+    }
+
+    /**
+     * @return The profiler timing the simulation being displayed.
+     */
+    static TickProfiler getProfiler()
+    {
+        return profiler;
+    }
+
+    /**
+     * @return The simulation being displayed.
+     */
+    public static SimulationInstance getInstance()
+    {
+        return instance;
+    }
+
     /**
      * @return The world being used by this simulation.
      */
     static World getWorld()
     {
-        return world;
+        return instance.getWorld();
     }
 
 }
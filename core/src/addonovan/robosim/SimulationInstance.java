@@ -0,0 +1,1160 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Disposable;
+import org.python.core.Py;
+import org.python.core.PyObject;
+import org.python.core.PySystemState;
+import org.python.util.PythonInterpreter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A single, self-contained simulation. Each instance owns its own Box2D world,
+ * python interpreter and entities, so any number of them may be run at the
+ * same time (on different threads) without interfering with each other.
+ *
+ * An instance is not thread-safe itself, it should only be used by one thread
+ * at a time.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class SimulationInstance
+{
+
+    //
+    // Constants
+    //
+
+    /** The layout for the program. */
+    private static final String PROGRAM_LAYOUT = Gdx.files.internal( "PyRobot.py" ).readString();
+
+    /** The length of a single physics step [s]. */
+    public static final float STEP_LENGTH = 1 / 60f;
+
+    /** The default number of steps that may be taken by a single call to advance(). */
+    public static final int DEFAULT_MAX_STEPS = 16;
+
+    /** Where the first robot starts [m]. */
+    private static final float SPAWN_X = Units.inToM( 11 ) + Units.pxToM( Robot.WIDTH / 2 ),
+                               SPAWN_Y = Units.inToM( 11 ) + Units.pxToM( Robot.HEIGHT / 2 );
+
+    /** The distance between the robots in the grid they start off in [m]. */
+    private static final float SPAWN_SPACING = Units.inToM( 24 );
+
+    /** Set in the debug keys bitmask when W (move forward) is held. */
+    public static final int KEY_FORWARD = 1;
+
+    /** Set in the debug keys bitmask when S (move backward) is held. */
+    public static final int KEY_BACKWARD = 1 << 1;
+
+    /** Set in the debug keys bitmask when A (rotate left) is held. */
+    public static final int KEY_LEFT = 1 << 2;
+
+    /** Set in the debug keys bitmask when D (rotate right) is held. */
+    public static final int KEY_RIGHT = 1 << 3;
+
+    //
+    // Fields
+    //
+
+    /** The robots being simulated. */
+    private final List< Robot > robots = new ArrayList<>();
+
+    /** A read-only view of the robots. */
+    private final List< Robot > robotsView = Collections.unmodifiableList( robots );
+
+    /** The first robot, which is the one driven by the keyboard and recorded. */
+    private Robot robot;
+
+    /** The number of robots to create on every initialize(). */
+    private int robotCount = 1;
+
+    /** The sensor readings of every robot, one after the other. */
+    private float[] frameInputs;
+
+    /** The motor powers of every robot, one after the other. */
+    private float[] frameOutputs;
+
+    /** Everything else in the world that isn't the robot. */
+    private final List< Renderable > renderables = new ArrayList<>();
+
+    /** The python interpreter of each robot, which are kept between initialize() calls. */
+    private final List< PythonInterpreter > interpreters = new ArrayList<>();
+
+    /** The class-level variables of the script to override, by name. */
+    private final Map< String, Object > scriptConstants = new LinkedHashMap<>();
+
+    /** The source of the script driving the robot, or null if it isn't driven by a script. */
+    private String source;
+
+    /** The java controller to drive the first robot with, or null if it's driven by the interpreter. */
+    private RobotController robotController;
+
+    /** Creates the java controllers for every other robot. */
+    private Supplier< ? extends RobotController > controllerFactory;
+
+    /** The recorded run to play back, or null if the robot is driven by a controller. */
+    private Replay replay;
+
+    /** The controller driving the robots. */
+    private Controller controller;
+
+    /** The controller driving the robots if there's more than one, or null. */
+    private SwarmController swarm;
+
+    /** The number of threads to run the robots' controllers on. */
+    private int controllerParallelism = 1;
+
+    /** The thread the controller runs on, or null if it runs on the stepping thread. */
+    private ControllerThread controllerThread;
+
+    /** The most time the controller may take each tick when it runs on its own thread [ns]. */
+    private long controllerBudget = 0L;
+
+    /** What to do when the controller runs over its budget. */
+    private ControllerThread.LatePolicy latePolicy = ControllerThread.LatePolicy.HOLD;
+
+    /** The layout of the walls, built on every initialize(). */
+    private Arena arena = Arena.DEFAULT;
+
+    /** The world being used for simulations. */
+    private World world;
+
+    /** Counts the times the robots run into things. */
+    private final ContactListener contactListener = new ContactListener()
+    {
+        @Override
+        public void beginContact( Contact contact )
+        {
+            collide( contact.getFixtureA() );
+            collide( contact.getFixtureB() );
+        }
+
+        /**
+         * @param fixture
+         *          One of the fixtures which started touching.
+         */
+        private void collide( Fixture fixture )
+        {
+            Object owner = fixture.getBody().getUserData();
+            if ( owner instanceof Robot )
+            {
+                ( ( Robot ) owner ).collide();
+            }
+        }
+
+        @Override public void endContact( Contact contact ) {}
+        @Override public void preSolve( Contact contact, Manifold oldManifold ) {}
+        @Override public void postSolve( Contact contact, ContactImpulse impulse ) {}
+    };
+
+    /** Casts the rays for the robot's range sensors. */
+    private final RayCaster rayCaster = new RayCaster( this );
+
+    /** The time this simulation has been running [s]. */
+    private double runtime = 0.0;
+
+    /** The number of ticks since the simulation was initialized. */
+    private int ticks = 0;
+
+    /** If the keyboard should be polled for debug movement each tick. */
+    private boolean keyboardEnabled = false;
+
+    /** The simulated time that has been requested but not yet stepped [s]. */
+    private float accumulator = 0f;
+
+    /** The maximum number of steps that may be taken by a single call to advance(). */
+    private int maxSteps = DEFAULT_MAX_STEPS;
+
+    /** The recorder to use from the next initialize() on, or null. */
+    private TelemetryRecorder recorder;
+
+    /** Records every tick of the current run, or null if nothing is recorded. */
+    private TelemetryRecorder recording;
+
+    /** The snapshots taken of the current run, or null if none are taken. */
+    private SnapshotHistory history;
+
+    /** Times each phase of the ticks, or null if they aren't timed. */
+    private TickProfiler profiler;
+
+    /** The metrics this simulation reports to, or null if it doesn't. */
+    private SimulationMetrics metrics;
+
+    /** This simulation's gauges in the metrics, or null if it doesn't report to any. */
+    private SimulationMetrics.Gauges gauges;
+
+    //
+    // Actions
+    //
+
+    /**
+     * Creates a new PythonInterpreter for the given source code. The
+     * interpreter gets its own system state, so it doesn't share modules
+     * with the interpreters of any other simulations. Every other robot is
+     * given an interpreter of its own as well when it's created, so their
+     * scripts never share any state either.
+     *
+     * The source is only compiled the first time it's seen, after that the
+     * compiled code is reused from the ScriptCache.
+     *
+     * @param source
+     *          The new source of the file.
+     */
+    public void newInterpreter( String source )
+    {
+        cleanupInterpreters();
+        scriptConstants.clear();
+        robotController = null;
+        controllerFactory = null;
+        replay = null;
+        this.source = source;
+
+        interpreters.add( createInterpreter() );
+    }
+
+    /**
+     * Overrides one of the script's class-level variables, such as a constant
+     * being tuned, without changing (and recompiling) its source. Methods see
+     * the new value through {@code self}, as long as they don't assign to it
+     * themselves. The override lasts until the next newInterpreter().
+     *
+     * @param name
+     *          The name of the variable.
+     * @param value
+     *          Its new value, which is converted to python (e.g. an Integer
+     *          becomes an int, and a Double becomes a float).
+     */
+    public void setScriptConstant( String name, Object value )
+    {
+        scriptConstants.put( name, value );
+        for ( PythonInterpreter interpreter : interpreters )
+        {
+            interpreter.get( "PyRobot" ).__setattr__( name, Py.java2py( value ) );
+        }
+    }
+
+    /**
+     * @return A new interpreter, with its own system state, which has run
+     *          the script (defining the PyRobot class).
+     */
+    private PythonInterpreter createInterpreter()
+    {
+        PythonInterpreter interpreter = new PythonInterpreter( null, new PySystemState() );
+
+        String modifiedSource = PROGRAM_LAYOUT + "\n";
+        modifiedSource += "    " + source.replaceAll( "\n", "\n    " );
+        interpreter.exec( ScriptCache.compile( modifiedSource ) );
+
+        PyObject pyRobotClass = interpreter.get( "PyRobot" );
+        scriptConstants.forEach( ( name, value ) -> pyRobotClass.__setattr__( name, Py.java2py( value ) ) );
+
+        return interpreter;
+    }
+
+    /**
+     * Cleans up and forgets every interpreter.
+     */
+    private void cleanupInterpreters()
+    {
+        interpreters.forEach( PythonInterpreter::cleanup );
+        interpreters.clear();
+    }
+
+    /**
+     * Drives the robot with the given java controller instead of a python
+     * script. This replaces any interpreter created before. If there's more
+     * than one robot, the others are given new instances of the controller's
+     * class, which needs a public no-arg constructor.
+     *
+     * @param controller
+     *          The controller to drive the first robot with. Its init()
+     *          method is called on every initialize().
+     */
+    public void newController( RobotController controller )
+    {
+        newController( controller, () ->
+        {
+            try
+            {
+                return ControllerLoader.newInstance( controller.getClass() );
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                throw new IllegalStateException( "Could not create another " + controller.getClass().getName(), e );
+            }
+        } );
+    }
+
+    /**
+     * Drives the robots with java controllers instead of a python script.
+     * This replaces any interpreter created before.
+     *
+     * @param factory
+     *          Creates a controller for each robot. The first robot's
+     *          controller is created now and kept, the others are created on
+     *          every initialize().
+     */
+    public void newController( Supplier< ? extends RobotController > factory )
+    {
+        newController( factory.get(), factory );
+    }
+
+    /**
+     * @param controller
+     *          The controller to drive the first robot with.
+     * @param factory
+     *          Creates the controllers for every other robot.
+     */
+    private void newController( RobotController controller, Supplier< ? extends RobotController > factory )
+    {
+        cleanupInterpreters();
+        source = null;
+        robotController = controller;
+        controllerFactory = factory;
+        replay = null;
+    }
+
+    /**
+     * Plays back a recorded run instead of running a controller. The motor
+     * powers and debug keys are fed to the robot exactly as they were
+     * recorded, so stepping the simulation with the recorded tick lengths
+     * reproduces the run. The controller never runs on its own thread during
+     * a replay, and the keyboard is ignored. There's only ever one robot in a
+     * replay.
+     *
+     * @param replay
+     *          The run to play back.
+     */
+    public void newReplay( Replay replay )
+    {
+        cleanupInterpreters();
+        source = null;
+        robotController = null;
+        controllerFactory = null;
+        this.replay = replay;
+    }
+
+    /**
+     * Initializes a new simulation. This should be called before
+     * the simulation is stepped again if a new interpreter or controller
+     * has been created.
+     *
+     * @throws IllegalStateException
+     *          If the robots don't all fit in the arena.
+     */
+    public void initialize()
+    {
+        // make sure the robots fit before anything is torn down
+        int count = replay != null ? 1 : robotCount;
+        float[] spawns;
+        try
+        {
+            spawns = spawnPositions( count );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            throw new IllegalStateException( e.getMessage(), e );
+        }
+
+        disposeWorld( shutdownControllers() );
+        world = new World( new Vector2( 0f, 0f ), false );
+        world.setContactListener( contactListener );
+        rayCaster.invalidate();
+
+        robots.clear();
+        Controller[] controllers = new Controller[ count ];
+        for ( int i = 0; i < count; i++ )
+        {
+            Robot robot = new Robot( this, i, spawns[ 2 * i ], spawns[ 2 * i + 1 ] );
+            robots.add( robot );
+            controllers[ i ] = newController( robot );
+            if ( metrics != null ) controllers[ i ] = metrics.count( controllers[ i ] );
+        }
+        robot = robots.get( 0 );
+
+        if ( count == 1 )
+        {
+            controller = controllers[ 0 ];
+            frameInputs = robot.getInputs();
+            frameOutputs = robot.getOutputs();
+        }
+        else
+        {
+            controller = swarm = new SwarmController( robots, controllers, controllerParallelism );
+            int inputCount = 0;
+            int outputCount = 0;
+            for ( Robot robot : robots )
+            {
+                inputCount += robot.getInputs().length;
+                outputCount += robot.getOutputs().length;
+            }
+            frameInputs = new float[ inputCount ];
+            frameOutputs = new float[ outputCount ];
+            scatterOutputs( true );
+        }
+
+        // java controllers work on the live robot, so they can't be left running
+        // on their own thread while the simulation carries on without them
+        if ( controllerBudget > 0L && replay == null && robotController == null )
+        {
+            controllerThread = new ControllerThread( controller, controllerBudget, latePolicy );
+        }
+
+        disposeRenderables();
+        renderables.add( arena.build( this ) );
+        rayCaster.updateRobots( robots );
+
+        runtime = 0.0;
+        ticks = 0;
+        accumulator = 0f;
+
+        recording = recorder;
+        if ( recording != null )
+        {
+            recording.begin( robot );
+        }
+
+        if ( history != null )
+        {
+            history.clear();
+            capture();
+        }
+    }
+
+    /**
+     * Lays the robots out in a grid, from the corner the first one always
+     * starts in, as close to square as the arena's interior allows. Any place
+     * in the grid which would put a robot inside a wall is skipped.
+     *
+     * @param count
+     *          The number of robots.
+     * @return The x and y position of each robot, one after the other [m].
+     *
+     * @throws IllegalArgumentException
+     *          If the robots don't all fit in the arena.
+     */
+    private float[] spawnPositions( int count )
+    {
+        Rectangle interior = arena.getInterior();
+        float halfWidth = Robot.WIDTH_M / 2;
+        float halfHeight = Robot.HEIGHT_M / 2;
+
+        int maxColumns = spawnsBetween( SPAWN_X, Units.inToM( interior.x + interior.width ) - halfWidth, count );
+        int maxRows = spawnsBetween( SPAWN_Y, Units.inToM( interior.y + interior.height ) - halfHeight, count );
+        if ( maxColumns < 1 || maxRows < 1 )
+        {
+            throw new IllegalArgumentException( "Not even one robot fits in the arena" );
+        }
+
+        int columns = ( int ) java.lang.Math.max( java.lang.Math.ceil( java.lang.Math.sqrt( count ) ), java.lang.Math.ceil( ( double ) count / maxRows ) );
+        columns = java.lang.Math.min( columns, maxColumns );
+
+        float[] positions = new float[ 2 * count ];
+        int placed = 0;
+        for ( int cell = 0; placed < count && cell / columns < maxRows; cell++ )
+        {
+            float x = SPAWN_X + SPAWN_SPACING * ( cell % columns );
+            float y = SPAWN_Y + SPAWN_SPACING * ( cell / columns );
+            if ( arena.overlaps( Units.mToIn( x - halfWidth ), Units.mToIn( y - halfHeight ), Units.mToIn( Robot.WIDTH_M ), Units.mToIn( Robot.HEIGHT_M ) ) )
+            {
+                continue;
+            }
+
+            positions[ 2 * placed ] = x;
+            positions[ 2 * placed + 1 ] = y;
+            placed++;
+        }
+
+        if ( placed < count )
+        {
+            throw new IllegalArgumentException( count + " robots don't fit in the arena, only " + placed + " do" );
+        }
+        return positions;
+    }
+
+    /**
+     * @param start
+     *          Where the first robot's center is along the axis [m].
+     * @param end
+     *          The furthest a robot's center may be along the axis [m].
+     * @param most
+     *          The most robots that are needed.
+     * @return The number of robots which fit along the axis, at most {@code most}.
+     */
+    private static int spawnsBetween( float start, float end, int most )
+    {
+        if ( end < start ) return 0;
+        return ( int ) java.lang.Math.min( most, java.lang.Math.floor( ( end - start ) / SPAWN_SPACING ) + 1 );
+    }
+
+    /**
+     * Puts the simulation back into the state of the snapshot, which must have
+     * been taken of a robot with the same hardware (e.g. since the last
+     * initialize()). The simulation then carries on from the snapshot, and
+     * any newer snapshots are replaced as the new ones are taken.
+     *
+     * The controller isn't rewound, so a script carries on with whatever
+     * state it had built up, but a tick it's still working on is thrown away.
+     * Restoring also stops the telemetry recording for the rest of the run,
+     * as it would no longer describe a single run.
+     *
+     * @param snapshot
+     *          The snapshot to restore.
+     * @throws IllegalArgumentException
+     *          If the snapshot was taken of a robot with different hardware.
+     */
+    public void restore( Snapshot snapshot )
+    {
+        if ( !snapshot.fits( robots ) )
+        {
+            throw new IllegalArgumentException( "The snapshot was taken of robots with different hardware" );
+        }
+
+        robots.forEach( robot -> robot.restore( snapshot ) );
+        if ( controllerThread != null ) controllerThread.discardPending();
+
+        // now that everything's back in place, the sensors can see what they saw then
+        rayCaster.updateRobots( robots );
+        for ( Robot robot : robots )
+        {
+            robot.getSensors().forEach( Sensor::update );
+        }
+        scatterOutputs( true );
+
+        runtime = snapshot.runtime;
+        ticks = snapshot.ticks;
+        accumulator = 0f;
+        recording = null;
+    }
+
+    /**
+     * Creates a new simulation which starts off from the snapshot, driven by
+     * new instances of the same script, controllers or replay, with the same
+     * number of robots in the same arena. The new simulation doesn't keep snapshots, record telemetry or
+     * poll the keyboard unless it's told to, and this simulation carries on
+     * unaffected.
+     *
+     * @param snapshot
+     *          The snapshot to start off from.
+     * @return The new simulation, already initialized.
+     * @throws IllegalStateException
+     *          If the java controller couldn't be created again.
+     */
+    public SimulationInstance fork( Snapshot snapshot )
+    {
+        SimulationInstance fork = new SimulationInstance();
+        if ( replay != null )
+        {
+            fork.newReplay( replay );
+        }
+        else if ( robotController != null )
+        {
+            fork.newController( controllerFactory );
+        }
+        else
+        {
+            fork.newInterpreter( source );
+            scriptConstants.forEach( fork::setScriptConstant );
+        }
+
+        fork.setArena( arena );
+        fork.setRobotCount( robotCount );
+        fork.setControllerParallelism( controllerParallelism );
+        fork.setControllerThread( controllerBudget, latePolicy );
+        fork.setMaxSteps( maxSteps );
+        fork.initialize();
+        fork.restore( snapshot );
+        return fork;
+    }
+
+    /**
+     * Takes a snapshot of the simulation as it is now.
+     */
+    private void capture()
+    {
+        Snapshot snapshot = history.add( ticks, robots );
+        snapshot.runtime = runtime;
+        for ( Robot robot : robots )
+        {
+            robot.capture( snapshot );
+        }
+    }
+
+    /**
+     * Creates the controller for a robot.
+     *
+     * @param robot
+     *          The robot to control.
+     * @return The controller for the robot, with its hardware attached.
+     */
+    private Controller newController( Robot robot )
+    {
+        if ( replay != null )
+        {
+            return replay.newController( robot );
+        }
+        else if ( robotController != null )
+        {
+            return new JavaController( robot.getIndex() == 0 ? robotController : controllerFactory.get(), robot );
+        }
+        else
+        {
+            while ( interpreters.size() <= robot.getIndex() )
+            {
+                interpreters.add( createInterpreter() );
+            }
+
+            PythonInterpreter interpreter = interpreters.get( robot.getIndex() );
+            PyObject pyRobot = interpreter.get( "PyRobot" ).__call__( Py.java2py( robot ) );
+            return new PythonController( pyRobot, interpreter.getSystemState() );
+        }
+    }
+
+    /**
+     * Copies every robot's sensor readings into the shared frame.
+     */
+    private void gatherInputs()
+    {
+        if ( frameInputs == robot.getInputs() ) return;
+
+        int offset = 0;
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            float[] inputs = robots.get( i ).getInputs();
+            System.arraycopy( inputs, 0, frameInputs, offset, inputs.length );
+            offset += inputs.length;
+        }
+    }
+
+    /**
+     * Copies the motor powers in the shared frame back to every robot, or
+     * the other way around.
+     *
+     * @param fromRobots
+     *          If the frame should be filled from the robots instead.
+     */
+    private void scatterOutputs( boolean fromRobots )
+    {
+        if ( frameOutputs == robot.getOutputs() ) return;
+
+        int offset = 0;
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            float[] outputs = robots.get( i ).getOutputs();
+            if ( fromRobots )
+            {
+                System.arraycopy( outputs, 0, frameOutputs, offset, outputs.length );
+            }
+            else
+            {
+                System.arraycopy( frameOutputs, offset, outputs, 0, outputs.length );
+            }
+            offset += outputs.length;
+        }
+    }
+
+    /**
+     * Renders the simulation onto the screen.
+     */
+    void render()
+    {
+        renderables.forEach( Renderable::render );
+        robots.forEach( Robot::render );
+    }
+
+    /**
+     * Advances the simulation by the given amount of time. The time is
+     * accumulated and consumed in fixed steps of STEP_LENGTH, so running
+     * the simulation faster takes more steps instead of larger ones.
+     *
+     * At most maxSteps steps are taken per call; if the simulation falls
+     * further behind than that, the extra time is dropped instead of piling
+     * up for the following calls.
+     *
+     * @param frameTime
+     *          The amount of simulated time to advance [s].
+     * @return The number of steps that were taken.
+     */
+    public int advance( float frameTime )
+    {
+        accumulator += frameTime;
+
+        int steps = 0;
+        while ( accumulator >= STEP_LENGTH && steps < maxSteps )
+        {
+            step( STEP_LENGTH );
+            accumulator -= STEP_LENGTH;
+            steps++;
+        }
+
+        // we couldn't keep up, so forget about the time we couldn't simulate
+        if ( accumulator >= STEP_LENGTH )
+        {
+            accumulator %= STEP_LENGTH;
+        }
+
+        return steps;
+    }
+
+    /**
+     * Advances the simulation by a single tick of the given length.
+     *
+     * @param deltaTime
+     *          The amount of simulated time to advance [s].
+     */
+    public void step( float deltaTime )
+    {
+        TickProfiler profiler = this.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        long time = start;
+
+        runtime += deltaTime;
+
+        // every robot's sensors are updated before any of them move
+        rayCaster.updateRobots( robots );
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            robots.get( i ).update();
+        }
+        if ( profiler != null ) time = profiler.lap( TickProfiler.Phase.HARDWARE, time );
+
+        renderables.forEach( Renderable::update );
+        if ( profiler != null ) time = profiler.lap( TickProfiler.Phase.RENDERABLES, time );
+
+        gatherInputs();
+        if ( controllerThread != null )
+        {
+            controllerThread.run( frameInputs, frameOutputs );
+        }
+        else
+        {
+            try
+            {
+                controller.loop( frameInputs, frameOutputs );
+            }
+            catch ( Exception e )
+            {
+                e.printStackTrace();
+            }
+        }
+        scatterOutputs( false );
+        if ( profiler != null ) time = profiler.lap( TickProfiler.Phase.CONTROLLER, time );
+
+        int keys = 0;
+        if ( replay != null )
+        {
+            keys = replay.getKeys( ticks );
+        }
+        else if ( keyboardEnabled )
+        {
+            keys = pollKeyboard();
+        }
+        applyKeys( keys );
+        if ( profiler != null ) time = profiler.lap( TickProfiler.Phase.INPUT, time );
+
+        world.step( deltaTime, 6, 2 );
+        if ( profiler != null ) time = profiler.lap( TickProfiler.Phase.PHYSICS, time );
+
+        if ( recording != null )
+        {
+            recording.record( deltaTime, robot, keys );
+        }
+        ticks++;
+
+        if ( history != null && history.isDue( ticks ) )
+        {
+            capture();
+        }
+
+        if ( profiler != null )
+        {
+            time = profiler.lap( TickProfiler.Phase.RECORDING, time );
+            profiler.getHistogram( TickProfiler.Phase.TICK ).record( time - start );
+        }
+
+        if ( metrics != null )
+        {
+            metrics.recordTick( rayCaster.takeCastCount() );
+            gauges.bodies = world.getBodyCount();
+            gauges.contacts = world.getContactCount();
+            gauges.interpreters = interpreters.size();
+        }
+    }
+
+    /**
+     * @return The debug keys currently held down, as a bitmask of the KEY_ constants.
+     */
+    private static int pollKeyboard()
+    {
+        int keys = 0;
+        if ( Gdx.input.isKeyPressed( Input.Keys.W ) ) keys |= KEY_FORWARD;
+        if ( Gdx.input.isKeyPressed( Input.Keys.S ) ) keys |= KEY_BACKWARD;
+        if ( Gdx.input.isKeyPressed( Input.Keys.A ) ) keys |= KEY_LEFT;
+        if ( Gdx.input.isKeyPressed( Input.Keys.D ) ) keys |= KEY_RIGHT;
+        return keys;
+    }
+
+    /**
+     * Moves the robot according to the debug keys held down.
+     *
+     * @param keys
+     *          The keys held down, as a bitmask of the KEY_ constants.
+     */
+    private void applyKeys( int keys )
+    {
+        if ( ( keys & KEY_FORWARD ) != 0 )
+        {
+            robot.move( 1f );
+        }
+        if ( ( keys & KEY_BACKWARD ) != 0 )
+        {
+            robot.move( -1f );
+        }
+        if ( ( keys & KEY_LEFT ) != 0 )
+        {
+            robot.rotate( 0.25f );
+        }
+        if ( ( keys & KEY_RIGHT ) != 0 )
+        {
+            robot.rotate( -0.25f );
+        }
+    }
+
+    /**
+     * Frees the GPU resources of the renderables and removes them.
+     */
+    private void disposeRenderables()
+    {
+        for ( Renderable renderable : renderables )
+        {
+            if ( renderable instanceof Disposable )
+            {
+                ( ( Disposable ) renderable ).dispose();
+            }
+        }
+        renderables.clear();
+    }
+
+    /**
+     * Frees the native resources held by this simulation. The instance
+     * may not be used afterwards.
+     */
+    public void dispose()
+    {
+        disposeRenderables();
+        disposeWorld( shutdownControllers() );
+        world = null;
+
+        cleanupInterpreters();
+        setMetrics( null );
+    }
+
+    /**
+     * Frees the current world, if there is one.
+     *
+     * @param controllersStopped
+     *          If the controllers have stopped. If not, a stuck controller may
+     *          still be using the world, so it's abandoned instead of freed.
+     */
+    private void disposeWorld( boolean controllersStopped )
+    {
+        if ( world == null ) return;
+
+        if ( controllersStopped )
+        {
+            world.dispose();
+        }
+        else
+        {
+            Gdx.app.error( "SimulationInstance", "The controller is stuck and won't stop, abandoning its world instead of freeing it" );
+        }
+    }
+
+    /**
+     * Stops the threads running the controllers, if there are any.
+     *
+     * @return If the controllers have all stopped.
+     */
+    private boolean shutdownControllers()
+    {
+        boolean stopped = true;
+        if ( controllerThread != null )
+        {
+            stopped = controllerThread.shutdown();
+            controllerThread = null;
+        }
+
+        if ( swarm != null )
+        {
+            stopped &= swarm.shutdown();
+            swarm = null;
+        }
+        return stopped;
+    }
+
+    //
+    // Getters/Setters
+    //
+
+    /**
+     * @return The first robot being simulated, which is the one driven by the
+     *          keyboard and recorded by the telemetry recorder.
+     */
+    public Robot getRobot()
+    {
+        return robot;
+    }
+
+    /**
+     * @return Every robot being simulated, in order of their indices.
+     */
+    public List< Robot > getRobots()
+    {
+        return robotsView;
+    }
+
+    /**
+     * @param robotCount
+     *          The number of robots to create from the next initialize() on,
+     *          each with its own controller. A replay only ever has one robot.
+     * @throws IllegalArgumentException
+     *          If that many robots don't fit in the arena, which should be
+     *          set first.
+     */
+    public void setRobotCount( int robotCount )
+    {
+        if ( robotCount < 1 ) throw new IllegalArgumentException( "robotCount must be >=1" );
+        spawnPositions( robotCount );
+
+        this.robotCount = robotCount;
+    }
+
+    /**
+     * @return The controller driving the robot.
+     */
+    Controller getController()
+    {
+        return controller;
+    }
+
+    /**
+     * @return The number of ticks since the simulation was initialized.
+     */
+    public int getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return The time this simulation has been running [s].
+     */
+    public double getRuntime()
+    {
+        return runtime;
+    }
+
+    /**
+     * Runs the controller on a thread of its own from the next initialize()
+     * on, so a slow script can't hold up the thread stepping the simulation.
+     *
+     * Java controllers are always run on the stepping thread, as they read
+     * and write the robot's hardware directly instead of the frame they're
+     * handed, which isn't safe while the simulation steps on without them.
+     *
+     * @param budget
+     *          The most time the controller may take each tick [ns], or 0 to
+     *          run the controller on the stepping thread (the default).
+     * @param latePolicy
+     *          What to do when the controller runs over its budget.
+     */
+    public void setControllerThread( long budget, ControllerThread.LatePolicy latePolicy )
+    {
+        if ( budget < 0L ) throw new IllegalArgumentException( "budget must be >=0" );
+
+        this.controllerBudget = budget;
+        this.latePolicy = latePolicy;
+    }
+
+    /**
+     * Runs the robots' controllers on several threads at once from the next
+     * initialize() on. The motor powers are still applied in robot order once
+     * every controller is done, so the simulation plays out the same no matter
+     * how many threads there are.
+     *
+     * @param threads
+     *          The number of threads to run the controllers on, counting the
+     *          thread which runs the rest of the tick (1 by default).
+     */
+    public void setControllerParallelism( int threads )
+    {
+        if ( threads < 1 ) throw new IllegalArgumentException( "threads must be >=1" );
+
+        this.controllerParallelism = threads;
+    }
+
+    /**
+     * @return The thread the controller runs on, or null if it runs on the
+     *          stepping thread.
+     */
+    public ControllerThread getControllerThread()
+    {
+        return controllerThread;
+    }
+
+    /**
+     * @param maxSteps
+     *          The maximum number of steps that may be taken by a single call to
+     *          advance(), must be at least 1.
+     */
+    public void setMaxSteps( int maxSteps )
+    {
+        if ( maxSteps < 1 ) throw new IllegalArgumentException( "maxSteps must be >=1" );
+
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * @param arena
+     *          The layout of the walls to use from the next initialize() on.
+     */
+    public void setArena( Arena arena )
+    {
+        this.arena = arena;
+    }
+
+    /**
+     * @param recorder
+     *          Records every tick from the next initialize() on, or null to
+     *          stop recording. The recorder isn't closed by the simulation.
+     */
+    public void setRecorder( TelemetryRecorder recorder )
+    {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Takes a snapshot of the simulation every so many ticks from now on,
+     * keeping only the newest ones. The snapshots are forgotten on every
+     * initialize().
+     *
+     * @param interval
+     *          The number of ticks between snapshots.
+     * @param capacity
+     *          The most snapshots to keep, or 0 to stop taking them.
+     */
+    public void setSnapshots( int interval, int capacity )
+    {
+        history = capacity == 0 ? null : new SnapshotHistory( interval, capacity );
+    }
+
+    /**
+     * @return The snapshots taken of the current run, or null if none are taken.
+     */
+    public SnapshotHistory getSnapshotHistory()
+    {
+        return history;
+    }
+
+    /**
+     * @param profiler
+     *          Times each phase of every tick from now on, or null to stop
+     *          timing them (the default).
+     */
+    public void setProfiler( TickProfiler profiler )
+    {
+        this.profiler = profiler;
+    }
+
+    /**
+     * @return The profiler timing each tick, or null if they aren't timed.
+     */
+    public TickProfiler getProfiler()
+    {
+        return profiler;
+    }
+
+    /**
+     * @param metrics
+     *          The metrics to report every tick to from now on, or null to
+     *          stop reporting (the default). The controllers' exceptions are
+     *          only counted from the next initialize() on.
+     */
+    public void setMetrics( SimulationMetrics metrics )
+    {
+        if ( this.metrics != null ) this.metrics.remove( gauges );
+
+        this.metrics = metrics;
+        gauges = metrics == null ? null : metrics.add();
+        rayCaster.takeCastCount();
+    }
+
+    /**
+     * @return The metrics this simulation reports to, or null if it doesn't.
+     */
+    public SimulationMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * @param keyboardEnabled
+     *          If the keyboard should be polled for debug movement each tick.
+     */
+    public void setKeyboardEnabled( boolean keyboardEnabled )
+    {
+        this.keyboardEnabled = keyboardEnabled;
+    }
+
+    /**
+     * @return The world being used by this simulation.
+     */
+    World getWorld()
+    {
+        return world;
+    }
+
+    /**
+     * @return The ray caster for the robot's range sensors.
+     */
+    RayCaster getRayCaster()
+    {
+        return rayCaster;
+    }
+
+}
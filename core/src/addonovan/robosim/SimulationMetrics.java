@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters shared by any number of simulations, written out in the
+ * Prometheus text format so long runs can be watched from the outside.
+ *
+ * The counters are added to once per tick by each simulation, and the gauges
+ * (the Box2D bodies and contacts, and the interpreters) are published by each
+ * simulation at the end of its ticks, so writing the metrics never touches a
+ * simulation from another thread.
+ *
+ * The rates are measured from one call to {@link #format()} to the next, so
+ * they're only meaningful with a single scraper.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class SimulationMetrics
+{
+
+    /**
+     * The gauges of a single simulation, as of its last tick.
+     */
+    static final class Gauges
+    {
+        /** The number of bodies in the world. */
+        volatile int bodies;
+
+        /** The number of contacts in the world. */
+        volatile int contacts;
+
+        /** The number of python interpreters. */
+        volatile int interpreters;
+    }
+
+    //
+    // Fields
+    //
+
+    /** The number of ticks stepped. */
+    private final LongAdder ticks = new LongAdder();
+
+    /** The number of rays cast by the sensors. */
+    private final LongAdder raycasts = new LongAdder();
+
+    /** The number of exceptions thrown by the controllers. */
+    private final LongAdder controllerExceptions = new LongAdder();
+
+    /** The gauges of every simulation reporting to these metrics. */
+    private final List< Gauges > simulations = new CopyOnWriteArrayList<>();
+
+    /** When the metrics were last written out, from System.nanoTime(). */
+    private long lastTime = System.nanoTime();
+
+    /** The number of ticks when the metrics were last written out. */
+    private long lastTicks = 0L;
+
+    /** The number of raycasts when the metrics were last written out. */
+    private long lastRaycasts = 0L;
+
+    //
+    // Simulations
+    //
+
+    /**
+     * @return The gauges for a newly reporting simulation.
+     */
+    Gauges add()
+    {
+        Gauges gauges = new Gauges();
+        simulations.add( gauges );
+        return gauges;
+    }
+
+    /**
+     * @param gauges
+     *          The gauges of a simulation which no longer reports to these metrics.
+     */
+    void remove( Gauges gauges )
+    {
+        simulations.remove( gauges );
+    }
+
+    //
+    // Recording
+    //
+
+    /**
+     * Counts a single tick.
+     *
+     * @param raycasts
+     *          The number of rays cast during the tick.
+     */
+    void recordTick( long raycasts )
+    {
+        ticks.increment();
+        this.raycasts.add( raycasts );
+    }
+
+    /**
+     * Counts an exception thrown by a controller.
+     */
+    void recordControllerException()
+    {
+        controllerExceptions.increment();
+    }
+
+    /**
+     * Wraps the controller so every exception it throws is counted, before
+     * it's passed on.
+     *
+     * @param controller
+     *          The controller to count the exceptions of.
+     * @return The wrapped controller.
+     */
+    Controller count( Controller controller )
+    {
+        return ( inputs, outputs ) ->
+        {
+            try
+            {
+                controller.loop( inputs, outputs );
+            }
+            catch ( RuntimeException e )
+            {
+                recordControllerException();
+                throw e;
+            }
+        };
+    }
+
+    //
+    // Output
+    //
+
+    /**
+     * @return The metrics, in the Prometheus text format.
+     */
+    public synchronized String format()
+    {
+        long time = System.nanoTime();
+        long ticks = this.ticks.sum();
+        long raycasts = this.raycasts.sum();
+
+        double seconds = ( time - lastTime ) / 1e9;
+        long newTicks = ticks - lastTicks;
+        double ticksPerSecond = seconds > 0.0 ? newTicks / seconds : 0.0;
+        double raycastsPerTick = newTicks > 0L ? ( double ) ( raycasts - lastRaycasts ) / newTicks : 0.0;
+
+        lastTime = time;
+        lastTicks = ticks;
+        lastRaycasts = raycasts;
+
+        int bodies = 0, contacts = 0, interpreters = 0;
+        for ( Gauges gauges : simulations )
+        {
+            bodies += gauges.bodies;
+            contacts += gauges.contacts;
+            interpreters += gauges.interpreters;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        metric( sb, "robosim_ticks_total", "counter", "Ticks stepped over all simulations.", ticks );
+        metric( sb, "robosim_ticks_per_second", "gauge", "Ticks stepped per second since the last scrape.", ticksPerSecond );
+        metric( sb, "robosim_raycasts_total", "counter", "Rays cast by the sensors.", raycasts );
+        metric( sb, "robosim_raycasts_per_tick", "gauge", "Rays cast per tick since the last scrape.", raycastsPerTick );
+        metric( sb, "robosim_controller_exceptions_total", "counter", "Exceptions thrown by the controllers.", controllerExceptions.sum() );
+        metric( sb, "robosim_simulations", "gauge", "Simulations reporting metrics.", simulations.size() );
+        metric( sb, "robosim_box2d_bodies", "gauge", "Box2D bodies over all simulations.", bodies );
+        metric( sb, "robosim_box2d_contacts", "gauge", "Box2D contacts over all simulations.", contacts );
+        metric( sb, "robosim_interpreters", "gauge", "Python interpreters over all simulations.", interpreters );
+        metric( sb, "robosim_heap_used_bytes", "gauge", "Heap in use, which the interpreters make up most of.",
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() );
+
+        List< GarbageCollectorMXBean > collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        header( sb, "robosim_gc_collections_total", "counter", "Garbage collections, by collector." );
+        for ( GarbageCollectorMXBean collector : collectors )
+        {
+            sample( sb, "robosim_gc_collections_total", collector.getName(), collector.getCollectionCount() );
+        }
+        header( sb, "robosim_gc_pause_seconds_total", "counter", "Time spent collecting garbage, by collector." );
+        for ( GarbageCollectorMXBean collector : collectors )
+        {
+            sample( sb, "robosim_gc_pause_seconds_total", collector.getName(), collector.getCollectionTime() / 1e3 );
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes out a metric with a single, unlabelled sample.
+     */
+    private static void metric( StringBuilder sb, String name, String type, String help, double value )
+    {
+        header( sb, name, type, help );
+        sb.append( name ).append( ' ' ).append( number( value ) ).append( '\n' );
+    }
+
+    /**
+     * Writes out the HELP and TYPE lines of a metric.
+     */
+    private static void header( StringBuilder sb, String name, String type, String help )
+    {
+        sb.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+        sb.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+    }
+
+    /**
+     * Writes out a sample of a metric, labelled with the garbage collector it's of.
+     */
+    private static void sample( StringBuilder sb, String name, String gc, double value )
+    {
+        sb.append( name ).append( "{gc=\"" ).append( gc.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ) ).append( "\"} " )
+          .append( number( value ) ).append( '\n' );
+    }
+
+    /**
+     * @return The value, without a fraction if it's a whole number.
+     */
+    private static String number( double value )
+    {
+        return value == ( long ) value ? Long.toString( ( long ) value ) : String.format( Locale.ROOT, "%.3f", value );
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.List;
+
+/**
+ * The dynamic state of a simulation at the end of a tick: each robot's
+ * transform and velocities, their hardware frames, how many times they've
+ * collided and the time. The walls
+ * never move, so they aren't part of it.
+ *
+ * What's not in a snapshot is Box2D's internal contact cache and the state of
+ * the controllers (e.g. the script's variables), so a simulation restored
+ * from a snapshot carries on from the same place, but not necessarily exactly
+ * as the original did.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class Snapshot
+{
+
+    //
+    // Constants
+    //
+
+    /** The number of floats in the state of each robot: x, y, angle, velocity x and y, angular velocity. */
+    static final int STATE_SIZE = 6;
+
+    //
+    // Fields
+    //
+
+    /** The number of ticks since the simulation was initialized. */
+    int ticks;
+
+    /** The time the simulation had been running [s]. */
+    double runtime;
+
+    /** The state of each robot, one after the other [m, rad, m/s, rad/s]. */
+    final float[] states;
+
+    /** The motor powers each robot's controller last sent back. */
+    final float[][] outputs;
+
+    /** The sensor readings each robot's controller was last given. */
+    final float[][] inputs;
+
+    /** The number of times each robot had run into something. */
+    final int[] collisions;
+
+    /** The time each robot first ran into something [s], or -1 if it hadn't. */
+    final double[] firstCollisionTimes;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates an empty snapshot for robots with the given hardware.
+     *
+     * @param robots
+     *          The robots in the simulation.
+     */
+    Snapshot( List< Robot > robots )
+    {
+        states = new float[ STATE_SIZE * robots.size() ];
+        outputs = new float[ robots.size() ][];
+        inputs = new float[ robots.size() ][];
+        collisions = new int[ robots.size() ];
+        firstCollisionTimes = new double[ robots.size() ];
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            outputs[ i ] = new float[ robots.get( i ).getOutputs().length ];
+            inputs[ i ] = new float[ robots.get( i ).getInputs().length ];
+        }
+    }
+
+    /**
+     * Creates a deep copy of the other snapshot.
+     *
+     * @param other
+     *          The snapshot to copy.
+     */
+    private Snapshot( Snapshot other )
+    {
+        ticks = other.ticks;
+        runtime = other.runtime;
+        states = other.states.clone();
+        outputs = new float[ other.outputs.length ][];
+        inputs = new float[ other.inputs.length ][];
+        collisions = other.collisions.clone();
+        firstCollisionTimes = other.firstCollisionTimes.clone();
+        for ( int i = 0; i < outputs.length; i++ )
+        {
+            outputs[ i ] = other.outputs[ i ].clone();
+            inputs[ i ] = other.inputs[ i ].clone();
+        }
+    }
+
+    /**
+     * @return A copy of this snapshot, which won't be reused by a {@link SnapshotHistory}.
+     */
+    public Snapshot copy()
+    {
+        return new Snapshot( this );
+    }
+
+    /**
+     * @param robots
+     *          The robots in a simulation.
+     * @return If this snapshot holds exactly the robots' hardware.
+     */
+    boolean fits( List< Robot > robots )
+    {
+        if ( robots.size() != outputs.length ) return false;
+
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            if ( !fits( robots.get( i ) ) ) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param robot
+     *          One of the robots in a simulation.
+     * @return If this snapshot holds exactly the robot's hardware.
+     */
+    boolean fits( Robot robot )
+    {
+        int index = robot.getIndex();
+        return index < outputs.length
+            && outputs[ index ].length == robot.getOutputs().length
+            && inputs[ index ].length == robot.getInputs().length;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return The number of ticks since the simulation was initialized.
+     */
+    public int getTicks()
+    {
+        return ticks;
+    }
+
+    /**
+     * @return The time the simulation had been running [s].
+     */
+    public double getRuntime()
+    {
+        return runtime;
+    }
+
+    /**
+     * @return The number of robots in the snapshot.
+     */
+    public int getRobotCount()
+    {
+        return outputs.length;
+    }
+
+    /**
+     * @param robot
+     *          The index of the robot.
+     * @return The x position of the robot [m].
+     */
+    public float getX( int robot )
+    {
+        return states[ STATE_SIZE * robot ];
+    }
+
+    /**
+     * @param robot
+     *          The index of the robot.
+     * @return The y position of the robot [m].
+     */
+    public float getY( int robot )
+    {
+        return states[ STATE_SIZE * robot + 1 ];
+    }
+
+    /**
+     * @param robot
+     *          The index of the robot.
+     * @return The angle of the robot [rad].
+     */
+    public float getAngle( int robot )
+    {
+        return states[ STATE_SIZE * robot + 2 ];
+    }
+
+    /**
+     * @param robot
+     *          The index of the robot.
+     * @return The number of times the robot had run into something.
+     */
+    public int getCollisions( int robot )
+    {
+        return collisions[ robot ];
+    }
+
+}
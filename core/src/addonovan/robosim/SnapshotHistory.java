@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.List;
+
+/**
+ * A bounded history of snapshots, taken every so many ticks. Once it's full,
+ * the oldest snapshot is reused for the newest one, so keeping a history
+ * doesn't allocate once it has filled up.
+ *
+ * The history may be read from any thread, but the snapshots it hands out are
+ * reused, so they should be copied if they're kept around.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class SnapshotHistory
+{
+
+    //
+    // Fields
+    //
+
+    /** The number of ticks between snapshots. */
+    private final int interval;
+
+    /** The snapshots, as a ring starting at start. */
+    private final Snapshot[] snapshots;
+
+    /** The index of the oldest snapshot. */
+    private int start = 0;
+
+    /** The number of snapshots being held. */
+    private int size = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param interval
+     *          The number of ticks between snapshots.
+     * @param capacity
+     *          The most snapshots to keep.
+     */
+    SnapshotHistory( int interval, int capacity )
+    {
+        if ( interval < 1 ) throw new IllegalArgumentException( "interval must be >=1" );
+        if ( capacity < 1 ) throw new IllegalArgumentException( "capacity must be >=1" );
+
+        this.interval = interval;
+        snapshots = new Snapshot[ capacity ];
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * @param ticks
+     *          The number of ticks since the simulation was initialized.
+     * @return If a snapshot should be taken at the end of this tick.
+     */
+    boolean isDue( int ticks )
+    {
+        return ticks % interval == 0;
+    }
+
+    /**
+     * Makes room for a new snapshot, reusing the oldest one if the history
+     * is full and it's the right size. Any snapshots from the given tick on
+     * are forgotten first, as the simulation has been rewound since they
+     * were taken and they no longer show what happened.
+     *
+     * @param ticks
+     *          The tick the snapshot is taken at.
+     * @param robots
+     *          The robots in the simulation.
+     * @return The snapshot to capture into, which is now the newest.
+     */
+    synchronized Snapshot add( int ticks, List< Robot > robots )
+    {
+        while ( size > 0 && get( size - 1 ).ticks >= ticks )
+        {
+            size--;
+        }
+
+        int index;
+        if ( size < snapshots.length )
+        {
+            index = ( start + size ) % snapshots.length;
+            size++;
+        }
+        else
+        {
+            index = start;
+            start = ( start + 1 ) % snapshots.length;
+        }
+
+        Snapshot snapshot = snapshots[ index ];
+        if ( snapshot == null || !snapshot.fits( robots ) )
+        {
+            snapshot = snapshots[ index ] = new Snapshot( robots );
+        }
+        snapshot.ticks = ticks;
+        return snapshot;
+    }
+
+    /**
+     * Forgets every snapshot.
+     */
+    synchronized void clear()
+    {
+        start = 0;
+        size = 0;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @param index
+     *          The index of the snapshot, 0 being the oldest.
+     * @return The snapshot, which will be reused once it's the oldest and the
+     *          history is full.
+     */
+    public synchronized Snapshot get( int index )
+    {
+        if ( index < 0 || index >= size ) throw new IndexOutOfBoundsException( "index " + index + " of " + size );
+        return snapshots[ ( start + index ) % snapshots.length ];
+    }
+
+    /**
+     * @param ticks
+     *          The tick to look for.
+     * @return The newest snapshot taken at or before the tick, or null if
+     *          there isn't one.
+     */
+    public synchronized Snapshot latestAt( int ticks )
+    {
+        for ( int i = size - 1; i >= 0; i-- )
+        {
+            Snapshot snapshot = get( i );
+            if ( snapshot.ticks <= ticks ) return snapshot;
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of snapshots being held.
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The number of ticks between snapshots.
+     */
+    public int getInterval()
+    {
+        return interval;
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ImmediateModeRenderer20;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * A set of filled rectangles baked into a vertex buffer once, then drawn with
+ * a single call every frame. This is for geometry which never moves, so it
+ * doesn't have to be pushed through the ShapeRenderer again on each frame.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class StaticMesh implements Disposable
+{
+
+    //
+    // Constants
+    //
+
+    /** The values for each vertex: x, y and the packed color. */
+    private static final int VERTEX_SIZE = 3;
+
+    /** Each rectangle is two triangles. */
+    private static final int VERTICES_PER_RECT = 6;
+
+    /** The shader every static mesh is drawn with, the same one the ShapeRenderer uses. */
+    private static ShaderProgram shader;
+
+    //
+    // Fields
+    //
+
+    /** The vertices on the GPU. */
+    private final Mesh mesh;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Uploads the rectangles to the GPU. This needs to be called on the
+     * thread with the GL context.
+     *
+     * @param rects
+     *          The x, y, width and height of each rectangle, one after the other [px].
+     * @param color
+     *          The color to fill the rectangles with.
+     */
+    StaticMesh( float[] rects, Color color )
+    {
+        int count = rects.length / 4;
+        float packed = color.toFloatBits();
+
+        float[] vertices = new float[ count * VERTICES_PER_RECT * VERTEX_SIZE ];
+        int v = 0;
+        for ( int i = 0; i < rects.length; i += 4 )
+        {
+            float x1 = rects[ i ], y1 = rects[ i + 1 ];
+            float x2 = x1 + rects[ i + 2 ], y2 = y1 + rects[ i + 3 ];
+
+            v = vertex( vertices, v, x1, y1, packed );
+            v = vertex( vertices, v, x2, y1, packed );
+            v = vertex( vertices, v, x2, y2, packed );
+
+            v = vertex( vertices, v, x2, y2, packed );
+            v = vertex( vertices, v, x1, y2, packed );
+            v = vertex( vertices, v, x1, y1, packed );
+        }
+
+        mesh = new Mesh( true, java.lang.Math.max( 1, count * VERTICES_PER_RECT ), 0,
+                new VertexAttribute( VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE ),
+                VertexAttribute.ColorPacked() );
+        mesh.setVertices( vertices );
+
+        if ( shader == null )
+        {
+            shader = ImmediateModeRenderer20.createDefaultShader( false, true, 0 );
+        }
+    }
+
+    /**
+     * Writes a single vertex.
+     *
+     * @return The index of the next vertex.
+     */
+    private static int vertex( float[] vertices, int v, float x, float y, float color )
+    {
+        vertices[ v ] = x;
+        vertices[ v + 1 ] = y;
+        vertices[ v + 2 ] = color;
+        return v + VERTEX_SIZE;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Draws the rectangles.
+     *
+     * @param projection
+     *          The projection to draw with, the same as the ShapeRenderer's.
+     */
+    void draw( Matrix4 projection )
+    {
+        if ( mesh.getNumVertices() == 0 ) return;
+
+        shader.begin();
+        shader.setUniformMatrix( "u_projModelView", projection );
+        mesh.render( shader, GL20.GL_TRIANGLES );
+        shader.end();
+    }
+
+    @Override
+    public void dispose()
+    {
+        mesh.dispose();
+    }
+
+}
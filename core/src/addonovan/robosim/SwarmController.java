@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives every robot in a simulation, each with a controller of its own.
+ * The simulation hands this one frame of sensor readings and one frame of
+ * motor powers for all of the robots, laid out one robot after the other,
+ * so the whole swarm can be run like a single controller (and on a single
+ * {@link ControllerThread}).
+ *
+ * Each robot's controller is given its own slice of the frames, and an
+ * exception in one of them doesn't stop the rest of the swarm.
+ *
+ * The controllers may be run on several threads at once. The threads take the
+ * robots one at a time until they're all done, and the tick doesn't finish
+ * until every thread has reached the barrier at the end of it. The motor
+ * powers are only copied into the frame after that, in robot order, so which
+ * thread ran which robot never changes the outcome. This relies on the
+ * controllers not sharing any state with each other, which is why every robot
+ * gets its own python interpreter.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class SwarmController implements Controller
+{
+
+    //
+    // Constants
+    //
+
+    /** How long shutdown() waits for all of the workers to stop [ms]. */
+    private static final long SHUTDOWN_TIMEOUT = 1000L;
+
+    //
+    // Fields
+    //
+
+    /** The controller of each robot. */
+    private final Controller[] controllers;
+
+    /** The sensor readings handed to each robot's controller. */
+    private final float[][] inputs;
+
+    /** The motor powers sent back by each robot's controller. */
+    private final float[][] outputs;
+
+    /** Where each robot's sensor readings start in the frame. */
+    private final int[] inputOffsets;
+
+    /** Where each robot's motor powers start in the frame. */
+    private final int[] outputOffsets;
+
+    /** The threads running controllers alongside the thread calling loop(). */
+    private final Thread[] workers;
+
+    /** Lets the workers start on a tick. */
+    private final CyclicBarrier start;
+
+    /** Waits for every thread to finish a tick. */
+    private final CyclicBarrier end;
+
+    /** The index of the next robot to run this tick. */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /** The sensor readings of every robot for the current tick. */
+    private float[] frameInputs;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param robots
+     *          The robots being driven, whose hardware must all be attached.
+     * @param controllers
+     *          The controller of each robot, in the same order.
+     * @param threads
+     *          The number of threads to run the controllers on, counting the
+     *          thread that calls loop().
+     */
+    SwarmController( List< Robot > robots, Controller[] controllers, int threads )
+    {
+        this.controllers = controllers;
+        inputs = new float[ robots.size() ][];
+        outputs = new float[ robots.size() ][];
+        inputOffsets = new int[ robots.size() ];
+        outputOffsets = new int[ robots.size() ];
+
+        int inputOffset = 0;
+        int outputOffset = 0;
+        for ( int i = 0; i < robots.size(); i++ )
+        {
+            Robot robot = robots.get( i );
+            inputs[ i ] = new float[ robot.getInputs().length ];
+            outputs[ i ] = robot.getOutputs().clone();
+            inputOffsets[ i ] = inputOffset;
+            outputOffsets[ i ] = outputOffset;
+            inputOffset += inputs[ i ].length;
+            outputOffset += outputs[ i ].length;
+        }
+
+        // there's no point in having more threads than robots
+        workers = new Thread[ java.lang.Math.max( java.lang.Math.min( threads, controllers.length ) - 1, 0 ) ];
+        start = new CyclicBarrier( workers.length + 1 );
+        end = new CyclicBarrier( workers.length + 1 );
+        for ( int i = 0; i < workers.length; i++ )
+        {
+            workers[ i ] = new Thread( this::work, "Controller-" + ( i + 1 ) );
+            workers[ i ].setDaemon( true );
+            workers[ i ].start();
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    @Override
+    public void loop( float[] inputs, float[] outputs )
+    {
+        frameInputs = inputs;
+        next.set( 0 );
+
+        if ( workers.length == 0 )
+        {
+            runRobots();
+        }
+        else
+        {
+            try
+            {
+                start.await();
+                runRobots();
+                end.await();
+            }
+            catch ( InterruptedException e )
+            {
+                // the simulation is being shut down
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch ( BrokenBarrierException e )
+            {
+                return;
+            }
+        }
+
+        for ( int i = 0; i < controllers.length; i++ )
+        {
+            System.arraycopy( this.outputs[ i ], 0, outputs, outputOffsets[ i ], this.outputs[ i ].length );
+        }
+    }
+
+    /**
+     * Runs the controllers of the robots nobody has taken yet this tick.
+     */
+    private void runRobots()
+    {
+        for ( int i = next.getAndIncrement(); i < controllers.length; i = next.getAndIncrement() )
+        {
+            float[] robotInputs = inputs[ i ];
+            System.arraycopy( frameInputs, inputOffsets[ i ], robotInputs, 0, robotInputs.length );
+
+            try
+            {
+                controllers[ i ].loop( robotInputs, outputs[ i ] );
+            }
+            catch ( Exception e )
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Runs ticks on one of the worker threads, until it's shut down.
+     */
+    private void work()
+    {
+        try
+        {
+            while ( true )
+            {
+                start.await();
+                runRobots();
+                end.await();
+            }
+        }
+        catch ( InterruptedException | BrokenBarrierException e )
+        {
+            // shut down
+        }
+    }
+
+    /**
+     * Stops the worker threads, interrupting any controllers that are still
+     * running, and waits a short while for them to finish.
+     *
+     * @return If every worker has stopped. If not, a controller is stuck and
+     *          its thread has been abandoned, and may still be using its robot
+     *          (and the world).
+     */
+    boolean shutdown()
+    {
+        for ( Thread worker : workers )
+        {
+            worker.interrupt();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( SHUTDOWN_TIMEOUT );
+        try
+        {
+            for ( Thread worker : workers )
+            {
+                // join( 0 ) would wait forever, so stop waiting once the time is up
+                long remaining = TimeUnit.NANOSECONDS.toMillis( deadline - System.nanoTime() );
+                if ( remaining <= 0 ) break;
+                worker.join( remaining );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        for ( Thread worker : workers )
+        {
+            if ( worker.isAlive() ) return false;
+        }
+        return true;
+    }
+
+}
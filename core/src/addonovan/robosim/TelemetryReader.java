@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Reads back the ticks written by a {@link TelemetryRecorder}, one at a time.
+ *
+ * A file which ends in the middle of a record (e.g. because the recording
+ * process was killed) is read up to its last whole tick, and is then marked
+ * as {@link #isTruncated() truncated}.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class TelemetryReader implements Closeable
+{
+
+    //
+    // Fields
+    //
+
+    /** The file being read. */
+    private final DataInputStream in;
+
+    /** The index of the current recording, or -1 before the first one. */
+    private int run = -1;
+
+    /** The index of the current tick in its recording. */
+    private long tick = -1;
+
+    /** The simulated time at the end of the current tick [s]. */
+    private double time;
+
+    /** The raw bits of the current tick's values. */
+    private int[] values = new int[ 0 ];
+
+    /** The motor powers of the current tick. */
+    private float[] motorPowers = new float[ 0 ];
+
+    /** The sensor values of the current tick. */
+    private float[] inputs = new float[ 0 ];
+
+    /** The x and y position of each motor on the robot in the current recording [m]. */
+    private float[] motorPositions = new float[ 0 ];
+
+    /** If the file ended in the middle of a record. */
+    private boolean truncated = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Opens a telemetry file.
+     *
+     * @param file
+     *          The file to read.
+     *
+     * @throws IOException
+     *          If the file couldn't be opened, or isn't a telemetry file.
+     */
+    public TelemetryReader( File file ) throws IOException
+    {
+        in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ), 1 << 16 ) );
+
+        if ( in.readInt() != TelemetryRecorder.MAGIC )
+        {
+            in.close();
+            throw new IOException( "Not a telemetry file: " + file );
+        }
+
+        int version = in.readInt();
+        if ( version != TelemetryRecorder.VERSION )
+        {
+            in.close();
+            throw new IOException( "Unsupported telemetry version: " + version );
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Moves on to the next tick.
+     *
+     * @return If there was another tick, or false at the end of the file
+     *          (including when it ends partway through a tick).
+     *
+     * @throws IOException
+     *          If the file couldn't be read, or is corrupt.
+     */
+    public boolean next() throws IOException
+    {
+        try
+        {
+            return readTick();
+        }
+        catch ( EOFException e )
+        {
+            truncated = true;
+            return false;
+        }
+    }
+
+    /**
+     * Reads records until the next tick.
+     *
+     * @return If there was another tick, or false at the end of the file.
+     *
+     * @throws EOFException
+     *          If the file ends in the middle of a record.
+     * @throws IOException
+     *          If the file couldn't be read, or is corrupt.
+     */
+    private boolean readTick() throws IOException
+    {
+        while ( true )
+        {
+            int tag = in.read();
+            if ( tag < 0 ) return false;
+
+            if ( tag == TelemetryRecorder.TAG_RUN )
+            {
+                int motors = readVarint();
+                int sensors = readVarint();
+
+                motorPositions = new float[ 2 * motors ];
+                for ( int i = 0; i < motorPositions.length; i++ )
+                {
+                    motorPositions[ i ] = Float.intBitsToFloat( readVarint() );
+                }
+
+                run++;
+                tick = -1;
+                time = 0.0;
+                values = new int[ TelemetryRecorder.STATE_SIZE + motors + sensors ];
+                motorPowers = new float[ motors ];
+                inputs = new float[ sensors ];
+            }
+            else if ( tag == TelemetryRecorder.TAG_TICK && run >= 0 )
+            {
+                for ( int i = 0; i < values.length; i++ )
+                {
+                    values[ i ] ^= readVarint();
+                }
+                for ( int i = 0; i < motorPowers.length; i++ )
+                {
+                    motorPowers[ i ] = Float.intBitsToFloat( values[ TelemetryRecorder.STATE_SIZE + i ] );
+                }
+                for ( int i = 0; i < inputs.length; i++ )
+                {
+                    inputs[ i ] = Float.intBitsToFloat( values[ TelemetryRecorder.STATE_SIZE + motorPowers.length + i ] );
+                }
+
+                tick++;
+                time += getDeltaTime();
+                return true;
+            }
+            else
+            {
+                throw new IOException( "Corrupt telemetry file, unexpected tag " + tag );
+            }
+        }
+    }
+
+    private int readVarint() throws IOException
+    {
+        int value = 0;
+        for ( int shift = 0; shift < 35; shift += 7 )
+        {
+            int b = in.read();
+            if ( b < 0 ) throw new EOFException( "Telemetry file ends in the middle of a tick" );
+
+            value |= ( b & 0x7F ) << shift;
+            if ( ( b & 0x80 ) == 0 ) return value;
+        }
+        throw new IOException( "Corrupt telemetry file, varint too long" );
+    }
+
+    /**
+     * Writes every remaining tick as CSV. A header row is written before the
+     * first tick, and again whenever a recording has different hardware.
+     *
+     * @param out
+     *          Where to write the CSV to.
+     *
+     * @throws IOException
+     *          If the file couldn't be read or the CSV couldn't be written.
+     */
+    public void writeCsv( Writer out ) throws IOException
+    {
+        int headerMotors = -1, headerInputs = -1;
+        StringBuilder line = new StringBuilder();
+
+        while ( next() )
+        {
+            if ( motorPowers.length != headerMotors || inputs.length != headerInputs )
+            {
+                headerMotors = motorPowers.length;
+                headerInputs = inputs.length;
+
+                line.setLength( 0 );
+                line.append( "run,tick,time,keys,x,y,angle" );
+                for ( int i = 0; i < headerMotors; i++ ) line.append( ",motor" ).append( i );
+                for ( int i = 0; i < headerInputs; i++ ) line.append( ",input" ).append( i );
+                out.write( line.append( '\n' ).toString() );
+            }
+
+            line.setLength( 0 );
+            line.append( run ).append( ',' ).append( tick ).append( ',' ).append( time ).append( ',' ).append( getKeys() )
+                .append( ',' ).append( getX() ).append( ',' ).append( getY() ).append( ',' ).append( getAngle() );
+            for ( float power : motorPowers ) line.append( ',' ).append( power );
+            for ( float input : inputs ) line.append( ',' ).append( input );
+            out.write( line.append( '\n' ).toString() );
+        }
+
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @return If the file ended in the middle of a record, which is only
+     *          known once next() has returned false.
+     */
+    public boolean isTruncated()
+    {
+        return truncated;
+    }
+
+    /**
+     * @return The index of the current recording in the file.
+     */
+    public int getRun()
+    {
+        return run;
+    }
+
+    /**
+     * @return The index of the current tick in its recording.
+     */
+    public long getTick()
+    {
+        return tick;
+    }
+
+    /**
+     * @return The simulated time at the end of the current tick [s].
+     */
+    public double getTime()
+    {
+        return time;
+    }
+
+    /**
+     * @return The length of the current tick [s].
+     */
+    public float getDeltaTime()
+    {
+        return Float.intBitsToFloat( values[ 0 ] );
+    }
+
+    /**
+     * @return The debug keys held down this tick, as a bitmask of the
+     *          SimulationInstance.KEY_ constants.
+     */
+    public int getKeys()
+    {
+        return values[ 1 ];
+    }
+
+    /**
+     * @return The x position of the robot at the end of the tick [m].
+     */
+    public float getX()
+    {
+        return Float.intBitsToFloat( values[ 2 ] );
+    }
+
+    /**
+     * @return The y position of the robot at the end of the tick [m].
+     */
+    public float getY()
+    {
+        return Float.intBitsToFloat( values[ 3 ] );
+    }
+
+    /**
+     * @return The angle of the robot at the end of the tick [rad].
+     */
+    public float getAngle()
+    {
+        return Float.intBitsToFloat( values[ 4 ] );
+    }
+
+    /**
+     * @return The motor powers the controller sent back this tick. The array
+     *          is reused for every tick.
+     */
+    public float[] getMotorPowers()
+    {
+        return motorPowers;
+    }
+
+    /**
+     * @return The x and y position of each motor on the robot in the current
+     *          recording [m].
+     */
+    public float[] getMotorPositions()
+    {
+        return motorPositions;
+    }
+
+    /**
+     * @return The sensor values handed to the controller this tick. The array
+     *          is reused for every tick.
+     */
+    public float[] getInputs()
+    {
+        return inputs;
+    }
+
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records the robot's pose, motor powers, sensor readings and the debug keys
+ * held down on every tick into a file. This is everything needed to
+ * {@link Replay} the run.
+ *
+ * Recording a tick just copies the values into a ring buffer of ints held
+ * off-heap, so it's cheap and never allocates. A background thread drains
+ * the buffer into the file. Each value is XORed with the same value from the
+ * previous tick and written as a varint, so values which don't change take
+ * up a single byte. {@link TelemetryReader} reads the file back.
+ *
+ * The file holds one recording per initialize() of the simulation:
+ * <pre>
+ *     int     magic ('RSTL')
+ *     int     version (2)
+ *     then, for each record, a tag byte, followed by
+ *         RUN:    varint motor count, varint sensor value count,
+ *                 varint bits of each motor's x and y position on the robot [m]
+ *         TICK:   varint (bits XOR previous bits) for each of
+ *                 tick length [s], keys, x [m], y [m], angle [rad], motor powers, sensor values
+ * </pre>
+ * The header ints are big-endian. Every value in a tick is a float, except for
+ * the keys, which are a bitmask of the SimulationInstance.KEY_ constants.
+ *
+ * Version 2 added the motor positions to RUN and the keys to TICK, which
+ * {@link Replay} needs. Version 1 files can't be read any more.
+ *
+ * If the writer falls so far behind that the ring buffer fills up, recording
+ * waits for it to catch up rather than losing ticks. The writer hands what
+ * it has written to the file at least every FLUSH_INTERVAL, so a process which
+ * is killed without closing the recorder only loses the last moment of it.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class TelemetryRecorder implements Closeable
+{
+
+    //
+    // Constants
+    //
+
+    /** The first four bytes of a telemetry file, "RSTL". */
+    static final int MAGIC = 0x5253544C;
+
+    /** The version of the file format. */
+    static final int VERSION = 2;
+
+    /** Starts a new recording. */
+    static final int TAG_RUN = 1;
+
+    /** A single tick. */
+    static final int TAG_TICK = 2;
+
+    /** The values at the start of every tick: tick length, keys, x, y, angle. */
+    static final int STATE_SIZE = 5;
+
+    /** The default size of the ring buffer [ints] (4 MiB). */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /** The longest the encoded ticks are held before they're written to the file [ns]. */
+    private static final long FLUSH_INTERVAL = 1_000_000_000L;
+
+    //
+    // Fields
+    //
+
+    /** The values waiting to be written, off-heap. */
+    private final IntBuffer ring;
+
+    /** ring.capacity() - 1, for wrapping the indices around. */
+    private final int mask;
+
+    /** The total number of ints ever written into the ring. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** The total number of ints ever drained from the ring. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** The file being written to. */
+    private final OutputStream out;
+
+    /** The encoded bytes waiting to be written to the file (only used by the writer). */
+    private final byte[] bytes = new byte[ 1 << 16 ];
+
+    /** The number of bytes waiting in the byte buffer. */
+    private int byteCount = 0;
+
+    /** Drains the ring into the file. */
+    private final Thread writer;
+
+    /** Set once the recorder is closed, so the writer finishes up. */
+    private volatile boolean closed = false;
+
+    /** The error the writer ran into, if any. */
+    private volatile IOException error;
+
+    /** The number of motors in the current recording (only used on the recording thread). */
+    private int motorCount = -1;
+
+    /** The number of sensor values in the current recording (only used on the recording thread). */
+    private int inputCount = -1;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new recorder with the default capacity.
+     *
+     * @param file
+     *          The file to write to, which is replaced if it already exists.
+     *
+     * @throws IOException
+     *          If the file couldn't be opened.
+     */
+    public TelemetryRecorder( File file ) throws IOException
+    {
+        this( file, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Creates a new recorder.
+     *
+     * @param file
+     *          The file to write to, which is replaced if it already exists.
+     * @param capacity
+     *          The size of the ring buffer [ints], which must be a power of two.
+     *
+     * @throws IOException
+     *          If the file couldn't be opened.
+     */
+    public TelemetryRecorder( File file, int capacity ) throws IOException
+    {
+        if ( capacity < 64 || Integer.bitCount( capacity ) != 1 )
+        {
+            throw new IllegalArgumentException( "capacity must be a power of two, at least 64 (was " + capacity + ")" );
+        }
+
+        ring = ByteBuffer.allocateDirect( capacity * Integer.BYTES ).asIntBuffer();
+        mask = capacity - 1;
+
+        out = new FileOutputStream( file );
+        writeInt( MAGIC );
+        writeInt( VERSION );
+        flushBytes();
+
+        writer = new Thread( this::drain, "Telemetry " + file.getName() );
+        writer.setDaemon( true );
+        writer.start();
+    }
+
+    //
+    // Recording
+    //
+
+    /**
+     * Starts a new recording for the given robot. The robot's hardware must
+     * not change afterwards.
+     *
+     * @param robot
+     *          The robot being recorded.
+     */
+    void begin( Robot robot )
+    {
+        motorCount = robot.getOutputs().length;
+        inputCount = robot.getInputs().length;
+
+        long index = reserve( 3 + 2 * motorCount );
+        index = put( index, TAG_RUN );
+        index = put( index, motorCount );
+        index = put( index, inputCount );
+        for ( Motor motor : robot.getMotors() )
+        {
+            index = put( index, Float.floatToRawIntBits( motor.getPosition().x ) );
+            index = put( index, Float.floatToRawIntBits( motor.getPosition().y ) );
+        }
+        head.lazySet( index );
+    }
+
+    /**
+     * Records a single tick.
+     *
+     * @param deltaTime
+     *          The length of the tick [s].
+     * @param robot
+     *          The robot being recorded.
+     * @param keys
+     *          The debug keys held down this tick.
+     */
+    void record( float deltaTime, Robot robot, int keys )
+    {
+        float[] outputs = robot.getOutputs();
+        float[] inputs = robot.getInputs();
+        Vector2 position = robot.getBody().getPosition(); // one native call for both coordinates
+
+        long index = reserve( 1 + STATE_SIZE + motorCount + inputCount );
+        index = put( index, TAG_TICK );
+        index = put( index, Float.floatToRawIntBits( deltaTime ) );
+        index = put( index, keys );
+        index = put( index, Float.floatToRawIntBits( position.x ) );
+        index = put( index, Float.floatToRawIntBits( position.y ) );
+        index = put( index, Float.floatToRawIntBits( robot.getAngle() ) );
+        for ( int i = 0; i < motorCount; i++ )
+        {
+            index = put( index, Float.floatToRawIntBits( outputs[ i ] ) );
+        }
+        for ( int i = 0; i < inputCount; i++ )
+        {
+            index = put( index, Float.floatToRawIntBits( inputs[ i ] ) );
+        }
+        head.lazySet( index );
+    }
+
+    private long put( long index, int value )
+    {
+        ring.put( ( int ) index & mask, value );
+        return index + 1;
+    }
+
+    /**
+     * Waits until there's room for the given number of ints in the ring.
+     *
+     * @return The index to start writing at.
+     */
+    private long reserve( int size )
+    {
+        if ( size > ring.capacity() )
+        {
+            throw new IllegalStateException( "A tick of " + size + " values doesn't fit in the telemetry buffer" );
+        }
+        if ( motorCount < 0 )
+        {
+            throw new IllegalStateException( "Nothing is being recorded" );
+        }
+
+        long index = head.get();
+        while ( index + size - tail.get() > ring.capacity() )
+        {
+            if ( error != null || !writer.isAlive() )
+            {
+                throw new IllegalStateException( "The telemetry writer stopped", error );
+            }
+            LockSupport.unpark( writer );
+            LockSupport.parkNanos( 10_000L );
+        }
+        return index;
+    }
+
+    //
+    // Writing
+    //
+
+    /**
+     * Drains the ring into the file until the recorder is closed.
+     */
+    private void drain()
+    {
+        int[] previous = new int[ 0 ];
+        int tickSize = 0;
+
+        try
+        {
+            long position = tail.get();
+            long lastFlush = System.nanoTime();
+            while ( true )
+            {
+                // everything drained so far is encoded by now, so this finishes off whole
+                // records (though a full buffer may have been written out partway through one)
+                if ( byteCount > 0 && System.nanoTime() - lastFlush >= FLUSH_INTERVAL )
+                {
+                    flushBytes();
+                    lastFlush = System.nanoTime();
+                }
+
+                boolean finishing = closed;
+                long available = head.get();
+                if ( position == available )
+                {
+                    if ( finishing ) break;
+                    LockSupport.parkNanos( 1_000_000L );
+                    continue;
+                }
+
+                // whole records are always published at once
+                while ( position < available )
+                {
+                    int tag = ring.get( ( int ) position++ & mask );
+                    if ( tag == TAG_RUN )
+                    {
+                        int motors = ring.get( ( int ) position++ & mask );
+                        int inputs = ring.get( ( int ) position++ & mask );
+                        writeByte( TAG_RUN );
+                        writeVarint( motors );
+                        writeVarint( inputs );
+                        for ( int i = 0; i < 2 * motors; i++ )
+                        {
+                            writeVarint( ring.get( ( int ) position++ & mask ) );
+                        }
+
+                        tickSize = STATE_SIZE + motors + inputs;
+                        previous = new int[ tickSize ];
+                    }
+                    else
+                    {
+                        writeByte( TAG_TICK );
+                        for ( int i = 0; i < tickSize; i++ )
+                        {
+                            int value = ring.get( ( int ) position++ & mask );
+                            writeVarint( value ^ previous[ i ] );
+                            previous[ i ] = value;
+                        }
+                    }
+                }
+                tail.lazySet( position );
+            }
+            flushBytes();
+        }
+        catch ( IOException e )
+        {
+            error = e;
+        }
+    }
+
+    private void writeVarint( int value ) throws IOException
+    {
+        while ( ( value & ~0x7F ) != 0 )
+        {
+            writeByte( ( value & 0x7F ) | 0x80 );
+            value >>>= 7;
+        }
+        writeByte( value );
+    }
+
+    private void writeInt( int value ) throws IOException
+    {
+        writeByte( value >>> 24 );
+        writeByte( value >>> 16 );
+        writeByte( value >>> 8 );
+        writeByte( value );
+    }
+
+    private void writeByte( int value ) throws IOException
+    {
+        if ( byteCount == bytes.length ) flushBytes();
+        bytes[ byteCount++ ] = ( byte ) value;
+    }
+
+    private void flushBytes() throws IOException
+    {
+        out.write( bytes, 0, byteCount );
+        byteCount = 0;
+    }
+
+    //
+    // Closeable
+    //
+
+    /**
+     * Writes out everything that's been recorded and closes the file.
+     *
+     * @throws IOException
+     *          If anything couldn't be written.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed ) return;
+        closed = true;
+
+        LockSupport.unpark( writer );
+        try
+        {
+            writer.join();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        out.close();
+        if ( error != null ) throw error;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim;
+
+/**
+ * Times each phase of a simulation's ticks (and the drawing of its frames)
+ * into a {@link LatencyHistogram} per phase.
+ *
+ * The timers are laps: each phase is measured from the end of the one before
+ * it, so timing a whole tick takes one call to System.nanoTime() per phase.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class TickProfiler
+{
+
+    /**
+     * The phases which are timed.
+     */
+    public enum Phase
+    {
+        /** Updating the robots' motors and sensors. */
+        HARDWARE,
+
+        /** Updating everything else in the world. */
+        RENDERABLES,
+
+        /** Running the controllers (or waiting on their threads). */
+        CONTROLLER,
+
+        /** Polling the keyboard (or replaying it) and applying the debug movement. */
+        INPUT,
+
+        /** Stepping the Box2D world. */
+        PHYSICS,
+
+        /** Recording telemetry and taking snapshots. */
+        RECORDING,
+
+        /** The whole tick. */
+        TICK,
+
+        /** Drawing a frame, on the desktop. */
+        RENDER
+    }
+
+    //
+    // Constants
+    //
+
+    /** The phases, so they don't have to be copied out of the enum every time. */
+    private static final Phase[] PHASES = Phase.values();
+
+    //
+    // Fields
+    //
+
+    /** The histogram of each phase, by its ordinal. */
+    private final LatencyHistogram[] histograms = new LatencyHistogram[ PHASES.length ];
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a new profiler with nothing recorded.
+     */
+    public TickProfiler()
+    {
+        for ( int i = 0; i < histograms.length; i++ )
+        {
+            histograms[ i ] = new LatencyHistogram();
+        }
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Ends a phase and records how long it took.
+     *
+     * @param phase
+     *          The phase which just ended.
+     * @param start
+     *          When the phase started, from System.nanoTime().
+     * @return The current time, which is when the next phase starts.
+     */
+    public long lap( Phase phase, long start )
+    {
+        long now = System.nanoTime();
+        histograms[ phase.ordinal() ].record( now - start );
+        return now;
+    }
+
+    /**
+     * Adds everything the other profiler recorded to this one.
+     *
+     * @param other
+     *          The profiler to add.
+     */
+    public void add( TickProfiler other )
+    {
+        for ( int i = 0; i < histograms.length; i++ )
+        {
+            histograms[ i ].add( other.histograms[ i ] );
+        }
+    }
+
+    /**
+     * Forgets everything recorded.
+     */
+    public void reset()
+    {
+        for ( LatencyHistogram histogram : histograms )
+        {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Describes each phase which has been recorded, one line per phase.
+     *
+     * @return The table, with a header line [us].
+     */
+    public String[] format()
+    {
+        int rows = 0;
+        for ( LatencyHistogram histogram : histograms )
+        {
+            if ( histogram.getCount() > 0 ) rows++;
+        }
+
+        String[] lines = new String[ rows + 1 ];
+        lines[ 0 ] = String.format( "%-12s %10s %9s %9s %9s", "phase [us]", "count", "p50", "p99", "max" );
+
+        int line = 1;
+        for ( Phase phase : PHASES )
+        {
+            LatencyHistogram histogram = histograms[ phase.ordinal() ];
+            if ( histogram.getCount() == 0 ) continue;
+
+            lines[ line++ ] = String.format( "%-12s %10d %9.1f %9.1f %9.1f", phase.name().toLowerCase(), histogram.getCount(),
+                    histogram.getPercentile( 50 ) / 1e3, histogram.getPercentile( 99 ) / 1e3, histogram.getMax() / 1e3 );
+        }
+        return lines;
+    }
+
+    //
+    // Getters
+    //
+
+    /**
+     * @param phase
+     *          A phase.
+     * @return The histogram of the phase's times.
+     */
+    public LatencyHistogram getHistogram( Phase phase )
+    {
+        return histograms[ phase.ordinal() ];
+    }
+
+}
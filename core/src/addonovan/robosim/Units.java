@@ -61,7 +61,18 @@ public final class Units
 
     public static Vector2 pxToM( Vector2 input )
     {
-        return new Vector2( pxToM( input.x ), pxToM( input.y ) );
+        return pxToM( input, new Vector2() );
+    }
+
+    /**
+     * Converts the input [px] into the output [m] without allocating. The
+     * input and output may be the same vector.
+     *
+     * @return out, for chaining.
+     */
+    public static Vector2 pxToM( Vector2 input, Vector2 out )
+    {
+        return out.set( pxToM( input.x ), pxToM( input.y ) );
     }
 
     public static float mToPx( float meters )
@@ -71,7 +82,18 @@ public final class Units
 
     public static Vector2 mToPx( Vector2 input )
     {
-        return new Vector2( mToPx( input.x ), mToPx( input.y ) );
+        return mToPx( input, new Vector2() );
+    }
+
+    /**
+     * Converts the input [m] into the output [px] without allocating. The
+     * input and output may be the same vector.
+     *
+     * @return out, for chaining.
+     */
+    public static Vector2 mToPx( Vector2 input, Vector2 out )
+    {
+        return out.set( mToPx( input.x ), mToPx( input.y ) );
     }
 
     public static float inToM( float inches )
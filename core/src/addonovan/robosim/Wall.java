@@ -28,6 +28,8 @@ import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.sun.istack.internal.NotNull;
 
+import java.util.function.Consumer;
+
 /**
  * Wall.
  *
@@ -41,6 +43,9 @@ public class Wall extends Entity
     // Fields
     //
 
+    /** The simulation this wall is in. */
+    private final SimulationInstance simulation;
+
     /** The body of this object. */
     @NotNull private Body body;
 
@@ -50,6 +55,9 @@ public class Wall extends Entity
     /** The height of this wall [px] */
     private final float height;
 
+    /** The drawing commands for this wall, kept so rendering doesn't allocate. */
+    private final Consumer< ShapeRenderer > drawCommand = this::draw;
+
     //
     // Constructors
     //
@@ -57,6 +65,8 @@ public class Wall extends Entity
     /**
      * Creates a new wall.
      *
+     * @param simulation
+     *          The simulation the wall is in.
      * @param width
      *          The width of the wall [in].
      * @param height
@@ -66,13 +76,15 @@ public class Wall extends Entity
      * @param y
      *          The y position of the wall [in].
      */
-    public Wall( float width, float height, float x, float y )
+    public Wall( SimulationInstance simulation, float width, float height, float x, float y )
     {
+        this.simulation = simulation;
         this.width = Units.inToPx( width );
         this.height = Units.inToPx( height );
         body = makeBody();
 
         body.setTransform( Units.inToM( x + width / 2 ), Units.inToM( y + height / 2 ), body.getAngle() );
+        simulation.getRayCaster().invalidate();
     }
 
     //
@@ -87,7 +99,7 @@ public class Wall extends Entity
         BodyDef bodyDef = new BodyDef();
         bodyDef.type = BodyDef.BodyType.StaticBody;
 
-        Body body = Simulation.getWorld().createBody( bodyDef );
+        Body body = simulation.getWorld().createBody( bodyDef );
 
         PolygonShape shape = new PolygonShape();
         shape.setAsBox( Units.pxToM( width / 2 ), Units.pxToM( height / 2 ) );
@@ -123,16 +135,23 @@ public class Wall extends Entity
     @Override
     public void render()
     {
-        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, sr ->
-        {
-            sr.setColor( Color.DARK_GRAY );
+        Simulation.renderShape( ShapeRenderer.ShapeType.Filled, drawCommand );
+    }
 
-            float x = Units.mToPx( body.getPosition().x ) - width / 2;
-            float y = Units.mToPx( body.getPosition().y ) - height / 2;
+    /**
+     * Draws the wall.
+     *
+     * @param sr
+     *          The renderer to draw with.
+     */
+    private void draw( ShapeRenderer sr )
+    {
+        sr.setColor( Color.DARK_GRAY );
 
-            sr.rect( x, y, width / 2f, height / 2f, width, height, 1, 1, body.getAngle() );
+        float x = Units.mToPx( body.getPosition().x ) - width / 2;
+        float y = Units.mToPx( body.getPosition().y ) - height / 2;
 
-        } );
+        sr.rect( x, y, width / 2f, height / 2f, width, height, 1, 1, body.getAngle() );
     }
 
 }
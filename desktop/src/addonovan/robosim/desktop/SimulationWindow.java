@@ -20,8 +20,11 @@
 
 package addonovan.robosim.desktop;
 
+import addonovan.robosim.ControllerLoader;
+import addonovan.robosim.RobotController;
 import addonovan.robosim.RobotSimulator;
 import addonovan.robosim.Simulation;
+import addonovan.robosim.SnapshotHistory;
 import addonovan.robosim.Units;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.lwjgl.LwjglAWTCanvas;
@@ -29,9 +32,14 @@ import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import jsyntaxpane.syntaxkits.PythonSyntaxKit;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The window that displays information to the user.
@@ -42,6 +50,13 @@ import java.awt.event.WindowListener;
 public class SimulationWindow implements WindowListener
 {
 
+    //
+    // Constants
+    //
+
+    /** The minimum time between updates of the runtime label [ms]. */
+    private static final long RUNTIME_INTERVAL = 50L;
+
     //
     // Components
     //
@@ -54,12 +69,24 @@ public class SimulationWindow implements WindowListener
     private JButton stopButton;
     private JButton restartButton;
     private JButton resetButton;
+    private JButton resumeButton;
+    private JSlider sliderHistory;
     private JLabel lblRuntime;
     private DocTree docTree;
     private JButton openSampleButton;
     private JButton openButton;
     private JButton saveButton;
 
+    //
+    // Fields
+    //
+
+    /** The java controller to drive the robot with, or null if the script in the editor is used. */
+    private Class< ? extends RobotController > controllerClass;
+
+    /** If the history slider is being moved by the window, rather than the user. */
+    private boolean updatingHistory = false;
+
     //
     // Constructors
     //
@@ -87,6 +114,74 @@ public class SimulationWindow implements WindowListener
         startButton.setEnabled( !running );
         stopButton.setEnabled( running );
         restartButton.setEnabled( running );
+
+        // the history can only be scrubbed through while the simulation is stopped
+        SnapshotHistory history = Simulation.getHistory();
+        int snapshots = running || history == null ? 0 : history.size();
+        updatingHistory = true;
+        sliderHistory.setMaximum( Math.max( snapshots - 1, 0 ) );
+        sliderHistory.setValue( sliderHistory.getMaximum() );
+        updatingHistory = false;
+        sliderHistory.setEnabled( snapshots > 1 );
+        resumeButton.setEnabled( snapshots > 0 );
+    }
+
+    /**
+     * Drives the robot with the given script from now on.
+     *
+     * @param source
+     *          The source of the script.
+     */
+    private void useScript( String source )
+    {
+        controllerClass = null;
+        scriptEditor.setEditable( true );
+        scriptEditor.setText( source );
+    }
+
+    /**
+     * Drives the robot with the given java controller from now on.
+     *
+     * @param controllerClass
+     *          The class of the controller.
+     */
+    private void useController( Class< ? extends RobotController > controllerClass )
+    {
+        this.controllerClass = controllerClass;
+        scriptEditor.setText( "# driven by " + controllerClass.getName() );
+        scriptEditor.setEditable( false );
+    }
+
+    /**
+     * Shows the open file dialog, and lets the user open either a script
+     * or a jar containing a java controller.
+     */
+    private void openFile()
+    {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter( new FileNameExtensionFilter( "Scripts and controllers (*.py, *.jar)", "py", "jar" ) );
+        if ( chooser.showOpenDialog( rootPanel ) != JFileChooser.APPROVE_OPTION ) return;
+
+        File file = chooser.getSelectedFile();
+        try
+        {
+            if ( file.getName().endsWith( ".jar" ) )
+            {
+                String className = JOptionPane.showInputDialog( rootPanel, "Controller class name:", "Open Controller", JOptionPane.QUESTION_MESSAGE );
+                if ( className == null || className.trim().isEmpty() ) return;
+
+                useController( ControllerLoader.loadClass( className.trim(), file ) );
+            }
+            else
+            {
+                useScript( new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ) );
+            }
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog( rootPanel, "Could not open " + file.getName() + ":\n" + e, "Open", JOptionPane.ERROR_MESSAGE );
+        }
     }
 
     //
@@ -124,18 +219,14 @@ public class SimulationWindow implements WindowListener
         scriptEditor.setContentType( "text/python" );
         scriptEditor.setText( Simulation.EMPTY_PROGRAM );
 
-        openButton.addActionListener( e -> {
-            // TODO show the open file dialog and let the user open a file
-        } );
+        openButton.addActionListener( e -> openFile() );
 
         saveButton.addActionListener( e -> {
             // TODO show the save file dialog and let the user save a file
         } );
 
         openSampleButton.addActionListener( e -> {
-            SamplesDialog.showDialog( rootPanel, s -> {
-                scriptEditor.setText( s );
-            } );
+            SamplesDialog.showDialog( rootPanel, this::useScript );
         } );
 
         docTree.buildTreeModel();
@@ -147,7 +238,9 @@ public class SimulationWindow implements WindowListener
      */
     private void setUpCallbacks()
     {
-        Simulation.runtime.attach( time -> lblRuntime.setText( String.format( "+%.2f s", time ) ) );
+        // the runtime changes every tick on the GL thread, so only show the latest one every so often
+        Simulation.runtime.attach( time -> lblRuntime.setText( String.format( "+%.2f s", time ) ),
+                SwingUtilities::invokeLater, RUNTIME_INTERVAL, TimeUnit.MILLISECONDS );
 
         Simulation.runSpeed.attach( speed ->
         {
@@ -157,7 +250,7 @@ public class SimulationWindow implements WindowListener
             sliderRunSpeed.setValue( newPos );
         } );
 
-        Simulation.running.attach( this::toggleControlButtons );
+        Simulation.running.attach( this::toggleControlButtons, SwingUtilities::invokeLater, 0, TimeUnit.MILLISECONDS );
     }
 
     /**
@@ -175,7 +268,23 @@ public class SimulationWindow implements WindowListener
 
         resetButton.addActionListener( e ->
         {
-            Simulation.newInterpreter( scriptEditor.getText() );
+            if ( controllerClass != null )
+            {
+                try
+                {
+                    Simulation.newController( ControllerLoader.newInstance( controllerClass ) );
+                }
+                catch ( ReflectiveOperationException ex )
+                {
+                    ex.printStackTrace();
+                    JOptionPane.showMessageDialog( rootPanel, "Could not create " + controllerClass.getName() + ":\n" + ex, "Reset", JOptionPane.ERROR_MESSAGE );
+                    return;
+                }
+            }
+            else
+            {
+                Simulation.newInterpreter( scriptEditor.getText() );
+            }
             Simulation.initialize();
         } );
 
@@ -186,6 +295,16 @@ public class SimulationWindow implements WindowListener
         } );
 
         sliderRunSpeed.addChangeListener( e -> Simulation.runSpeed.setValue( sliderRunSpeed.getValue() / 100.0 ) );
+
+        // carries on from wherever the history slider was left
+        resumeButton.addActionListener( e -> Simulation.start() );
+
+        sliderHistory.addChangeListener( e ->
+        {
+            if ( updatingHistory ) return;
+
+            Simulation.rewind( sliderHistory.getValue() );
+        } );
     }
 
     //
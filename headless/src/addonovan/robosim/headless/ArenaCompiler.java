@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim.headless;
+
+import addonovan.robosim.Arena;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts an arena from the text form into the binary form, which loads
+ * much faster.
+ *
+ * Usage: {@code ArenaCompiler <arena.txt> <arena.bin>}
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class ArenaCompiler
+{
+
+    public static void main( String[] args )
+    {
+        if ( args.length != 2 )
+        {
+            System.err.println( "Usage: ArenaCompiler <arena.txt> <arena.bin>" );
+            System.exit( 1 );
+        }
+
+        try
+        {
+            Arena arena = Arena.load( new File( args[ 0 ] ) );
+            arena.write( new File( args[ 1 ] ) );
+            System.out.println( "Wrote " + arena.getWallCount() + " walls to " + args[ 1 ] );
+        }
+        catch ( IOException e )
+        {
+            System.err.println( "Could not convert: " + args[ 0 ] );
+            e.printStackTrace();
+            System.exit( 1 );
+        }
+    }
+
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package addonovan.robosim.headless;
+
+import addonovan.robosim.Arena;
+import addonovan.robosim.ControllerLoader;
+import addonovan.robosim.Replay;
+import addonovan.robosim.Robot;
+import addonovan.robosim.RobotController;
+import addonovan.robosim.SimulationInstance;
+import addonovan.robosim.SimulationMetrics;
+import addonovan.robosim.TelemetryRecorder;
+import addonovan.robosim.TickProfiler;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import org.python.core.Options;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a script in the simulation without any window or GL context. The
+ * simulation is stepped back-to-back with a fixed tick length, so it runs as
+ * fast as the CPU allows instead of in real time.
+ *
+ * If more than one run is requested, the runs are spread across a thread pool
+ * with one thread per core, each with its own independent simulation.
+ *
+ * Instead of a python script, the robot may be driven by a java RobotController,
+ * given as {@code path/to/file.jar!com.example.Controller} (or just the class name
+ * if it's on the classpath). Each run gets its own instance of the controller.
+ *
+ * The arena may be given as a file in either of the {@link Arena} forms,
+ * otherwise the default arena is used.
+ *
+ * A telemetry recording ({@code .rstl}) may be given instead, which is played
+ * back without running any script, and checked against the recorded trajectory.
+ *
+ * If the {@code robosim.telemetry} system property is set to a directory, each
+ * run is recorded by a {@link TelemetryRecorder} into {@code run-<n>.rstl} there.
+ *
+ * The {@code robosim.robots} system property sets the number of robots in each
+ * run (1 by default), each driven by its own instance of the script or
+ * controller. Only the first robot is recorded, and its pose is the one logged.
+ * The robots' controllers are run on {@code robosim.controllerThreads} threads
+ * (1 by default), which never changes the outcome of a run.
+ *
+ * Each phase of every tick is timed, and once all of the runs are done the
+ * latency percentiles of each phase (over all the runs) are logged.
+ *
+ * If the {@code robosim.metricsPort} system property is set, live counters for
+ * all of the runs (ticks per second, raycasts, controller exceptions, Box2D
+ * bodies and contacts, memory and GC) are served in the Prometheus text format
+ * at {@code http://localhost:<port>/metrics} for as long as the runs last.
+ *
+ * Python's {@code site} module isn't imported into the scripts' interpreters
+ * unless the {@code python.import.site} system property is set to true.
+ *
+ * Usage: {@code HeadlessLauncher <script.py|controller|run.rstl> [ticks] [runs] [arena]}
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public class HeadlessLauncher extends ApplicationAdapter
+{
+
+    //
+    // Constants
+    //
+
+    /** The number of ticks to run if none was specified (one simulated minute). */
+    private static final int DEFAULT_TICKS = 60 * 60;
+
+    /** The directory to record the runs into, or null if they aren't recorded. */
+    private static final String TELEMETRY_DIRECTORY = System.getProperty( "robosim.telemetry" );
+
+    /** The number of robots in each simulation. */
+    private static final int ROBOT_COUNT = Integer.getInteger( "robosim.robots", 1 );
+
+    /** The number of threads to run each simulation's controllers on. */
+    private static final int CONTROLLER_THREADS = Integer.getInteger( "robosim.controllerThreads", 1 );
+
+    /** The port to serve the metrics on, or null if they aren't served. */
+    private static final Integer METRICS_PORT = Integer.getInteger( "robosim.metricsPort" );
+
+    //
+    // Fields
+    //
+
+    /** The source of the script to run, or null if a java controller is used. */
+    private final String source;
+
+    /** The java controller to run, or null if a script is used. */
+    private final Class< ? extends RobotController > controllerClass;
+
+    /** The recorded run to play back, or null if a script or controller is used. */
+    private final Replay replay;
+
+    /** The number of ticks to run each simulation for. */
+    private final int ticks;
+
+    /** The number of simulations to run. */
+    private final int runs;
+
+    /** The arena to run in. */
+    private Arena arena = Arena.DEFAULT;
+
+    /** The metrics every run reports to, or null if they aren't served. */
+    private SimulationMetrics metrics;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Constructs a new launcher for the given script.
+     *
+     * @param source
+     *          The source of the script to run.
+     * @param ticks
+     *          The number of ticks to run each simulation for.
+     * @param runs
+     *          The number of simulations to run.
+     */
+    public HeadlessLauncher( String source, int ticks, int runs )
+    {
+        this( source, null, null, ticks, runs );
+    }
+
+    /**
+     * Constructs a new launcher for the given java controller.
+     *
+     * @param controllerClass
+     *          The class of the controller to run.
+     * @param ticks
+     *          The number of ticks to run each simulation for.
+     * @param runs
+     *          The number of simulations to run.
+     */
+    public HeadlessLauncher( Class< ? extends RobotController > controllerClass, int ticks, int runs )
+    {
+        this( null, controllerClass, null, ticks, runs );
+    }
+
+    /**
+     * Constructs a new launcher which plays back a recorded run.
+     *
+     * @param replay
+     *          The run to play back.
+     * @param ticks
+     *          The number of ticks to play back, at most the number recorded.
+     * @param runs
+     *          The number of simulations to run.
+     */
+    public HeadlessLauncher( Replay replay, int ticks, int runs )
+    {
+        this( null, null, replay, java.lang.Math.min( ticks, replay.getTickCount() ), runs );
+    }
+
+    private HeadlessLauncher( String source, Class< ? extends RobotController > controllerClass, Replay replay, int ticks, int runs )
+    {
+        this.source = source;
+        this.controllerClass = controllerClass;
+        this.replay = replay;
+        this.ticks = ticks;
+        this.runs = runs;
+    }
+
+    //
+    // Setters
+    //
+
+    /**
+     * @param arena
+     *          The arena to run in.
+     */
+    public void setArena( Arena arena )
+    {
+        this.arena = arena;
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Runs a single simulation of the script from start to finish.
+     *
+     * @param run
+     *          The index of the run.
+     * @return The simulation, after it's been run.
+     *
+     * @throws ReflectiveOperationException
+     *          If the java controller couldn't be created.
+     * @throws IOException
+     *          If the run couldn't be recorded.
+     */
+    private SimulationInstance runOnce( int run ) throws ReflectiveOperationException, IOException
+    {
+        // closed even when the run blows up, so whatever was recorded is still readable
+        try ( TelemetryRecorder recorder = TELEMETRY_DIRECTORY == null
+                ? null
+                : new TelemetryRecorder( new File( TELEMETRY_DIRECTORY, "run-" + run + ".rstl" ) ) )
+        {
+            SimulationInstance simulation = new SimulationInstance();
+            simulation.setArena( arena );
+            simulation.setRobotCount( ROBOT_COUNT );
+            simulation.setControllerParallelism( CONTROLLER_THREADS );
+            simulation.setRecorder( recorder );
+            simulation.setProfiler( new TickProfiler() );
+            simulation.setMetrics( metrics );
+            if ( replay != null )
+            {
+                simulation.newReplay( replay );
+            }
+            else if ( controllerClass != null )
+            {
+                simulation.newController( ControllerLoader.newInstance( controllerClass ) );
+            }
+            else
+            {
+                simulation.newInterpreter( source );
+            }
+            simulation.initialize();
+
+            if ( replay != null )
+            {
+                int divergence = -1;
+                for ( int i = 0; i < ticks; i++ )
+                {
+                    simulation.step( replay.getDeltaTime( i ) );
+                    if ( divergence < 0 && !replay.matches( i, simulation.getRobot() ) ) divergence = i;
+                }
+
+                Gdx.app.log( "Headless", divergence < 0
+                        ? String.format( "Run %d: replay matches the recording for all %d ticks", run, ticks )
+                        : String.format( "Run %d: replay diverged from the recording at tick %d", run, divergence ) );
+            }
+            else
+            {
+                for ( int i = 0; i < ticks; i++ )
+                {
+                    simulation.step( SimulationInstance.STEP_LENGTH );
+                }
+            }
+
+            return simulation;
+        }
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void create()
+    {
+        Box2D.init();
+
+        int threads = Math.min( runs, Runtime.getRuntime().availableProcessors() );
+        ExecutorService pool = Executors.newFixedThreadPool( threads );
+        MetricsServer server = null;
+
+        try
+        {
+            if ( METRICS_PORT != null )
+            {
+                metrics = new SimulationMetrics();
+                server = new MetricsServer( metrics, METRICS_PORT );
+                Gdx.app.log( "Headless", "Serving metrics at http://localhost:" + METRICS_PORT + "/metrics" );
+            }
+
+            long start = System.nanoTime();
+
+            TickProfiler profiler = new TickProfiler();
+            List< Future< SimulationInstance > > results = new ArrayList<>();
+            for ( int i = 0; i < runs; i++ )
+            {
+                int run = i;
+                results.add( pool.submit( () -> runOnce( run ) ) );
+            }
+
+            for ( int i = 0; i < runs; i++ )
+            {
+                SimulationInstance simulation = results.get( i ).get();
+                Robot robot = simulation.getRobot();
+                Gdx.app.log( "Headless", String.format( "Run %d: %.2f s simulated, final pose: x=%.4f m, y=%.4f m, angle=%.4f rad",
+                        i, simulation.getRuntime(), robot.getX(), robot.getY(), robot.getAngle() ) );
+                profiler.add( simulation.getProfiler() );
+                simulation.dispose();
+            }
+
+            double seconds = ( System.nanoTime() - start ) / 1e9;
+            long totalTicks = ( long ) ticks * runs;
+            Gdx.app.log( "Headless", String.format( "Ran %d ticks over %d run(s) on %d thread(s) in %.3f s [%.0f ticks/s]",
+                    totalTicks, runs, threads, seconds, totalTicks / seconds ) );
+
+            for ( String line : profiler.format() )
+            {
+                Gdx.app.log( "Headless", line );
+            }
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            pool.shutdownNow();
+            if ( server != null ) server.stop();
+            Gdx.app.exit();
+        }
+    }
+
+    //
+    // Main
+    //
+
+    public static void main( String[] args )
+    {
+        if ( args.length < 1 || args.length > 4 )
+        {
+            System.err.println( "Usage: HeadlessLauncher <script.py|controller|run.rstl> [ticks] [runs] [arena]" );
+            System.exit( 1 );
+        }
+
+        // importing site into every interpreter's system state takes the better part of a
+        // second, which adds up quickly with an interpreter per robot, and the scripts don't need it
+        Options.importSite = Boolean.parseBoolean( System.getProperty( "python.import.site", "false" ) );
+
+        int ticks = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : DEFAULT_TICKS;
+        int runs = args.length > 2 ? Integer.parseInt( args[ 2 ] ) : 1;
+
+        HeadlessLauncher launcher;
+        try
+        {
+            if ( args[ 0 ].endsWith( ".rstl" ) )
+            {
+                launcher = new HeadlessLauncher( Replay.load( new File( args[ 0 ] ) ), args.length > 1 ? ticks : Integer.MAX_VALUE, runs );
+            }
+            else if ( args[ 0 ].endsWith( ".py" ) )
+            {
+                String source = new String( Files.readAllBytes( Paths.get( args[ 0 ] ) ), StandardCharsets.UTF_8 );
+                launcher = new HeadlessLauncher( source, ticks, runs );
+            }
+            else
+            {
+                launcher = new HeadlessLauncher( ControllerLoader.loadClass( args[ 0 ] ), ticks, runs );
+            }
+        }
+        catch ( IOException | ReflectiveOperationException | ClassCastException e )
+        {
+            System.err.println( "Could not load: " + args[ 0 ] );
+            e.printStackTrace();
+            System.exit( 1 );
+            return;
+        }
+
+        if ( args.length > 3 )
+        {
+            try
+            {
+                launcher.setArena( Arena.load( new File( args[ 3 ] ) ) );
+            }
+            catch ( IOException e )
+            {
+                System.err.println( "Could not load arena: " + args[ 3 ] );
+                e.printStackTrace();
+                System.exit( 1 );
+                return;
+            }
+        }
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0f;
+
+        new HeadlessApplication( launcher, config );
+    }
+
+}
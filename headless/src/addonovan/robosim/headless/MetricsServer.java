@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package addonovan.robosim.headless;
+
+import addonovan.robosim.SimulationMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves a {@link SimulationMetrics} at {@code /metrics} on the loopback
+ * interface, using the JDK's built-in HTTP server.
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+final class MetricsServer
+{
+
+    //
+    // Constants
+    //
+
+    /** The content type of the Prometheus text format. */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    //
+    // Fields
+    //
+
+    /** The metrics being served. */
+    private final SimulationMetrics metrics;
+
+    /** The server serving them. */
+    private final HttpServer server;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Starts serving the metrics.
+     *
+     * @param metrics
+     *          The metrics to serve.
+     * @param port
+     *          The port to serve them on.
+     * @throws IOException
+     *          If the port couldn't be bound.
+     */
+    MetricsServer( SimulationMetrics metrics, int port ) throws IOException
+    {
+        this.metrics = metrics;
+        server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), 0 );
+        server.createContext( "/metrics", this::handle );
+        server.start();
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * Writes the metrics out to a request.
+     *
+     * @param exchange
+     *          The request.
+     * @throws IOException
+     *          If the response couldn't be sent.
+     */
+    private void handle( HttpExchange exchange ) throws IOException
+    {
+        try
+        {
+            if ( !"GET".equals( exchange.getRequestMethod() ) )
+            {
+                exchange.sendResponseHeaders( 405, -1 );
+                return;
+            }
+
+            byte[] body = metrics.format().getBytes( StandardCharsets.UTF_8 );
+            exchange.getResponseHeaders().set( "Content-Type", CONTENT_TYPE );
+            exchange.sendResponseHeaders( 200, body.length );
+            try ( OutputStream out = exchange.getResponseBody() )
+            {
+                out.write( body );
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Stops serving the metrics.
+     */
+    void stop()
+    {
+        server.stop( 0 );
+    }
+
+}
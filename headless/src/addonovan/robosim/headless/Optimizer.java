@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package addonovan.robosim.headless;
+
+import addonovan.robosim.Arena;
+import addonovan.robosim.Robot;
+import addonovan.robosim.SimulationInstance;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.physics.box2d.Box2D;
+import org.python.core.CompileMode;
+import org.python.core.Options;
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.util.PythonInterpreter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tunes the constants of a script by running it over and over in headless
+ * simulations, searching for the values which maximize a fitness expression.
+ *
+ * The constants to tune are class-level assignments in the script, marked
+ * with the range to search:
+ * <pre>
+ * FAR = 125  # @tune 30 250
+ * </pre>
+ * Constants written without a decimal point are tuned as integers. Every
+ * candidate is run with the same (compiled) script, with its values set
+ * through {@link SimulationInstance#setScriptConstant(String, Object)}.
+ *
+ * The fitness is a python expression, evaluated once the run is over, which
+ * can use the tuned constants by name and these measurements of the first
+ * robot:
+ * <ul>
+ *     <li>{@code time}: the simulated time [s]</li>
+ *     <li>{@code x}, {@code y}, {@code angle}: the final pose [m, rad]</li>
+ *     <li>{@code distance}: the length of the path the robot took [m]</li>
+ *     <li>{@code collisions}: the number of times it ran into something</li>
+ *     <li>{@code first_collision}: when it first ran into something [s], or
+ *         infinity if it never did</li>
+ * </ul>
+ *
+ * The search is an evolution strategy in the style of a diagonal CMA-ES: each
+ * generation samples a population around the current mean (starting from the
+ * values in the script), evaluates it in parallel with one thread per core,
+ * then moves the mean to a weighted average of the better half and adapts the
+ * step size of each constant to how spread out the better half was.
+ *
+ * The {@code robosim.seed} system property sets the seed of the search.
+ *
+ * Python's {@code site} module isn't imported into the scripts' interpreters
+ * unless the {@code python.import.site} system property is set to true.
+ *
+ * Usage: {@code Optimizer <script.py> <fitness> [generations] [population] [ticks] [arena]}
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public class Optimizer extends ApplicationAdapter
+{
+
+    //
+    // Constants
+    //
+
+    /** Finds the tunable constants in a script. */
+    private static final Pattern TUNABLE = Pattern.compile(
+            "^[ \\t]*(\\w+)[ \\t]*=[ \\t]*([-+]?[0-9.]+(?:[eE][-+]?[0-9]+)?)[ \\t]*#[ \\t]*@tune[ \\t]+(\\S+)[ \\t]+(\\S+).*$",
+            Pattern.MULTILINE );
+
+    /** The number of generations to run if none was specified. */
+    private static final int DEFAULT_GENERATIONS = 20;
+
+    /** The number of candidates in each generation if none was specified. */
+    private static final int DEFAULT_POPULATION = 16;
+
+    /** The number of ticks to run each candidate for if none was specified (one simulated minute). */
+    private static final int DEFAULT_TICKS = 60 * 60;
+
+    /** The step size the search starts with, as a fraction of each constant's range. */
+    private static final double INITIAL_STEP = 0.3;
+
+    /** The smallest step size the search may shrink to, as a fraction of each constant's range. */
+    private static final double MIN_STEP = 1e-3;
+
+    /** How much of the step size is carried over from one generation to the next. */
+    private static final double STEP_MEMORY = 0.5;
+
+    /** The seed of the search. */
+    private static final long SEED = Long.getLong( "robosim.seed", 1L );
+
+    //
+    // Fields
+    //
+
+    /** The source of the script to tune. */
+    private final String source;
+
+    /** The fitness expression. */
+    private final String fitness;
+
+    /** The constants being tuned. */
+    private final List< Tunable > tunables;
+
+    /** The number of generations to run. */
+    private final int generations;
+
+    /** The number of candidates in each generation. */
+    private final int population;
+
+    /** The number of ticks to run each candidate for. */
+    private final int ticks;
+
+    /** The arena to run in. */
+    private Arena arena = Arena.DEFAULT;
+
+    /** The compiled fitness expression. */
+    private PyCode fitnessCode;
+
+    /** Evaluates the fitness expression, one interpreter per thread. */
+    private final ThreadLocal< PythonInterpreter > fitnessInterpreters = ThreadLocal.withInitial( PythonInterpreter::new );
+
+    //
+    // Constructors
+    //
+
+    /**
+     * @param source
+     *          The source of the script to tune.
+     * @param fitness
+     *          The python expression to maximize.
+     * @param generations
+     *          The number of generations to run.
+     * @param population
+     *          The number of candidates in each generation, at least 2.
+     * @param ticks
+     *          The number of ticks to run each candidate for.
+     */
+    public Optimizer( String source, String fitness, int generations, int population, int ticks )
+    {
+        if ( population < 2 ) throw new IllegalArgumentException( "population must be >=2" );
+
+        this.source = source;
+        this.fitness = fitness;
+        this.tunables = Tunable.find( source );
+        this.generations = generations;
+        this.population = population;
+        this.ticks = ticks;
+
+        if ( tunables.isEmpty() ) throw new IllegalArgumentException( "The script has no constants marked with @tune" );
+    }
+
+    //
+    // Actions
+    //
+
+    /**
+     * @param arena
+     *          The arena to run the candidates in.
+     */
+    public void setArena( Arena arena )
+    {
+        this.arena = arena;
+    }
+
+    /**
+     * Runs the script with the given constants, and measures how well it did.
+     *
+     * @param point
+     *          The value of each constant, as a fraction of its range.
+     * @return The fitness of the run, or negative infinity if it failed.
+     */
+    private double evaluate( double[] point )
+    {
+        SimulationInstance simulation = new SimulationInstance();
+        try
+        {
+            simulation.setArena( arena );
+            simulation.newInterpreter( source );
+            for ( int i = 0; i < tunables.size(); i++ )
+            {
+                Tunable tunable = tunables.get( i );
+                simulation.setScriptConstant( tunable.name, tunable.valueAt( point[ i ] ) );
+            }
+            simulation.initialize();
+
+            Robot robot = simulation.getRobot();
+            float lastX = robot.getX();
+            float lastY = robot.getY();
+            double distance = 0.0;
+            for ( int i = 0; i < ticks; i++ )
+            {
+                simulation.step( SimulationInstance.STEP_LENGTH );
+
+                float x = robot.getX();
+                float y = robot.getY();
+                distance += java.lang.Math.hypot( x - lastX, y - lastY );
+                lastX = x;
+                lastY = y;
+            }
+
+            PythonInterpreter interpreter = fitnessInterpreters.get();
+            for ( int i = 0; i < tunables.size(); i++ )
+            {
+                Tunable tunable = tunables.get( i );
+                interpreter.set( tunable.name, Py.java2py( tunable.valueAt( point[ i ] ) ) );
+            }
+            interpreter.set( "time", simulation.getRuntime() );
+            interpreter.set( "x", ( double ) lastX );
+            interpreter.set( "y", ( double ) lastY );
+            interpreter.set( "angle", ( double ) robot.getAngle() );
+            interpreter.set( "distance", distance );
+            interpreter.set( "collisions", robot.getCollisions() );
+            interpreter.set( "first_collision", robot.getCollisions() == 0 ? Double.POSITIVE_INFINITY : robot.getFirstCollisionTime() );
+
+            double value = interpreter.eval( fitnessCode ).asDouble();
+            return Double.isNaN( value ) ? Double.NEGATIVE_INFINITY : value;
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+            return Double.NEGATIVE_INFINITY;
+        }
+        finally
+        {
+            simulation.dispose();
+        }
+    }
+
+    /**
+     * Runs the search.
+     *
+     * @param pool
+     *          The threads to evaluate the candidates on.
+     * @return The best candidate found, as fractions of each constant's range.
+     * @throws Exception
+     *          If a candidate couldn't be evaluated.
+     */
+    private Candidate search( ExecutorService pool ) throws Exception
+    {
+        int dimensions = tunables.size();
+        Random random = new Random( SEED );
+
+        double[] mean = new double[ dimensions ];
+        double[] step = new double[ dimensions ];
+        for ( int i = 0; i < dimensions; i++ )
+        {
+            mean[ i ] = tunables.get( i ).fractionOf( tunables.get( i ).initial );
+            step[ i ] = INITIAL_STEP;
+        }
+
+        // the better half is recombined, with log-decreasing weights
+        int parents = population / 2;
+        double[] weights = new double[ parents ];
+        double weightSum = 0.0;
+        for ( int i = 0; i < parents; i++ )
+        {
+            weights[ i ] = java.lang.Math.log( parents + 0.5 ) - java.lang.Math.log( i + 1 );
+            weightSum += weights[ i ];
+        }
+        for ( int i = 0; i < parents; i++ )
+        {
+            weights[ i ] /= weightSum;
+        }
+
+        Candidate best = null;
+        for ( int generation = 0; generation < generations; generation++ )
+        {
+            List< Candidate > candidates = new ArrayList<>( population );
+            for ( int c = 0; c < population; c++ )
+            {
+                double[] point = new double[ dimensions ];
+                for ( int i = 0; i < dimensions; i++ )
+                {
+                    // the script's own values are always part of the first generation
+                    double offset = generation == 0 && c == 0 ? 0.0 : step[ i ] * random.nextGaussian();
+                    point[ i ] = java.lang.Math.min( java.lang.Math.max( mean[ i ] + offset, 0.0 ), 1.0 );
+                }
+                candidates.add( new Candidate( point ) );
+            }
+
+            List< Callable< Double > > tasks = new ArrayList<>( population );
+            for ( Candidate candidate : candidates )
+            {
+                tasks.add( () -> evaluate( candidate.point ) );
+            }
+            List< Future< Double > > results = pool.invokeAll( tasks );
+            for ( int c = 0; c < population; c++ )
+            {
+                candidates.get( c ).fitness = results.get( c ).get();
+            }
+
+            candidates.sort( Comparator.comparingDouble( ( Candidate candidate ) -> candidate.fitness ).reversed() );
+            if ( best == null || candidates.get( 0 ).fitness > best.fitness )
+            {
+                best = candidates.get( 0 );
+            }
+
+            // move the mean towards the better half, and size the steps by how spread out they were around the old mean
+            double[] newMean = new double[ dimensions ];
+            for ( int i = 0; i < dimensions; i++ )
+            {
+                double spread = 0.0;
+                for ( int p = 0; p < parents; p++ )
+                {
+                    double value = candidates.get( p ).point[ i ];
+                    newMean[ i ] += weights[ p ] * value;
+                    spread += weights[ p ] * ( value - mean[ i ] ) * ( value - mean[ i ] );
+                }
+                step[ i ] = java.lang.Math.max( STEP_MEMORY * step[ i ] + ( 1 - STEP_MEMORY ) * java.lang.Math.sqrt( spread ), MIN_STEP );
+            }
+            mean = newMean;
+
+            Gdx.app.log( "Optimizer", String.format( "Generation %d: best %.4f, median %.4f, overall best %.4f with %s",
+                    generation, candidates.get( 0 ).fitness, candidates.get( population / 2 ).fitness, best.fitness, describe( best.point ) ) );
+        }
+
+        return best;
+    }
+
+    /**
+     * @param point
+     *          The value of each constant, as a fraction of its range.
+     * @return The constants, as {@code NAME=value} pairs.
+     */
+    private String describe( double[] point )
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( int i = 0; i < tunables.size(); i++ )
+        {
+            if ( i > 0 ) builder.append( ", " );
+            builder.append( tunables.get( i ).name ).append( '=' ).append( tunables.get( i ).valueAt( point[ i ] ) );
+        }
+        return builder.toString();
+    }
+
+    //
+    // Overrides
+    //
+
+    @Override
+    public void create()
+    {
+        Box2D.init();
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool( threads );
+
+        try
+        {
+            fitnessCode = Py.compile_flags( fitness, "<fitness>", CompileMode.eval, Py.getCompilerFlags() );
+
+            Gdx.app.log( "Optimizer", String.format( "Tuning %d constant(s) over %d generation(s) of %d, on %d thread(s)",
+                    tunables.size(), generations, population, threads ) );
+
+            long start = System.nanoTime();
+            Candidate best = search( pool );
+            double seconds = ( System.nanoTime() - start ) / 1e9;
+
+            Gdx.app.log( "Optimizer", String.format( "Ran %d simulations in %.3f s, best fitness %.4f:",
+                    generations * population, seconds, best.fitness ) );
+            for ( int i = 0; i < tunables.size(); i++ )
+            {
+                Tunable tunable = tunables.get( i );
+                Gdx.app.log( "Optimizer", String.format( "    %s = %s  # @tune %s %s",
+                        tunable.name, tunable.valueAt( best.point[ i ] ), tunable.minText, tunable.maxText ) );
+            }
+        }
+        catch ( Exception e )
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            pool.shutdownNow();
+            Gdx.app.exit();
+        }
+    }
+
+    //
+    // Nested Classes
+    //
+
+    /**
+     * A constant in the script which is being tuned.
+     */
+    private static final class Tunable
+    {
+
+        /** The name of the constant. */
+        final String name;
+
+        /** The value in the script. */
+        final double initial;
+
+        /** The bounds of the search, as written in the script. */
+        final String minText, maxText;
+
+        /** The bounds of the search. */
+        final double min, max;
+
+        /** If the constant is an integer. */
+        final boolean integer;
+
+        /**
+         * @param matcher
+         *          The match of the constant's declaration.
+         */
+        private Tunable( Matcher matcher )
+        {
+            name = matcher.group( 1 );
+            initial = Double.parseDouble( matcher.group( 2 ) );
+            minText = matcher.group( 3 );
+            maxText = matcher.group( 4 );
+            min = Double.parseDouble( minText );
+            max = Double.parseDouble( maxText );
+            integer = !matcher.group( 2 ).matches( ".*[.eE].*" );
+
+            if ( !( min < max ) ) throw new IllegalArgumentException( "The range of " + name + " is empty" );
+        }
+
+        /**
+         * @param source
+         *          The source of a script.
+         * @return Every constant marked for tuning in the script.
+         */
+        static List< Tunable > find( String source )
+        {
+            List< Tunable > tunables = new ArrayList<>();
+            Matcher matcher = TUNABLE.matcher( source );
+            while ( matcher.find() )
+            {
+                tunables.add( new Tunable( matcher ) );
+            }
+            return tunables;
+        }
+
+        /**
+         * @param value
+         *          A value of the constant.
+         * @return How far the value is through the range, clamped to [0, 1].
+         */
+        double fractionOf( double value )
+        {
+            return java.lang.Math.min( java.lang.Math.max( ( value - min ) / ( max - min ), 0.0 ), 1.0 );
+        }
+
+        /**
+         * @param fraction
+         *          How far through the range the value is.
+         * @return The value of the constant, as an Integer or a Double (to
+         *          four decimal places, so it can be copied back exactly).
+         */
+        Object valueAt( double fraction )
+        {
+            double value = min + fraction * ( max - min );
+            return integer ? ( Object ) ( int ) java.lang.Math.round( value ) : ( Object ) ( java.lang.Math.round( value * 1e4 ) / 1e4 );
+        }
+
+    }
+
+    /**
+     * A set of values for the constants, and how well the script did with them.
+     */
+    private static final class Candidate
+    {
+
+        /** The value of each constant, as a fraction of its range. */
+        final double[] point;
+
+        /** The fitness of the run. */
+        double fitness;
+
+        /**
+         * @param point
+         *          The value of each constant, as a fraction of its range.
+         */
+        Candidate( double[] point )
+        {
+            this.point = point;
+        }
+
+    }
+
+    //
+    // Main
+    //
+
+    public static void main( String[] args )
+    {
+        if ( args.length < 2 || args.length > 6 )
+        {
+            System.err.println( "Usage: Optimizer <script.py> <fitness> [generations] [population] [ticks] [arena]" );
+            System.exit( 1 );
+        }
+
+        // importing site into every interpreter's system state takes the better part of a
+        // second, which adds up quickly with an interpreter per robot, and the scripts don't need it
+        Options.importSite = Boolean.parseBoolean( System.getProperty( "python.import.site", "false" ) );
+
+        int generations = args.length > 2 ? Integer.parseInt( args[ 2 ] ) : DEFAULT_GENERATIONS;
+        int population = args.length > 3 ? Integer.parseInt( args[ 3 ] ) : DEFAULT_POPULATION;
+        int ticks = args.length > 4 ? Integer.parseInt( args[ 4 ] ) : DEFAULT_TICKS;
+
+        Optimizer optimizer;
+        try
+        {
+            String source = new String( Files.readAllBytes( Paths.get( args[ 0 ] ) ), StandardCharsets.UTF_8 );
+            optimizer = new Optimizer( source, args[ 1 ], generations, population, ticks );
+            if ( args.length > 5 )
+            {
+                optimizer.setArena( Arena.load( new File( args[ 5 ] ) ) );
+            }
+        }
+        catch ( IOException | IllegalArgumentException e )
+        {
+            System.err.println( "Could not load: " + e.getMessage() );
+            System.exit( 1 );
+            return;
+        }
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 0f;
+
+        new HeadlessApplication( optimizer, config );
+    }
+
+}
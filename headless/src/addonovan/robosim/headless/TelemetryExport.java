@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016 Austin D. Donovan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to
+ * do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package addonovan.robosim.headless;
+
+import addonovan.robosim.TelemetryReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exports a telemetry recording as CSV, to the given file or to stdout.
+ *
+ * Usage: {@code TelemetryExport <run.rstl> [run.csv]}
+ *
+ * @author addonovan
+ * @since 10/18/26
+ */
+public final class TelemetryExport
+{
+
+    public static void main( String[] args )
+    {
+        if ( args.length < 1 || args.length > 2 )
+        {
+            System.err.println( "Usage: TelemetryExport <run.rstl> [run.csv]" );
+            System.exit( 1 );
+        }
+
+        try ( TelemetryReader reader = new TelemetryReader( new File( args[ 0 ] ) );
+              Writer out = new BufferedWriter( new OutputStreamWriter(
+                      args.length > 1 ? new FileOutputStream( args[ 1 ] ) : System.out, StandardCharsets.UTF_8 ) ) )
+        {
+            reader.writeCsv( out );
+            if ( reader.isTruncated() )
+            {
+                System.err.println( "Warning: " + args[ 0 ] + " ends partway through a tick, which was left out" );
+            }
+        }
+        catch ( IOException e )
+        {
+            System.err.println( "Could not export: " + args[ 0 ] );
+            e.printStackTrace();
+            System.exit( 1 );
+        }
+    }
+
+}